@@ -0,0 +1,227 @@
+package meetup.event.client;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserDto;
+import meetup.exception.NotFoundException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.stream.Collectors;
+
+/**
+ * Caches user lookups in front of the Feign {@link UserClient}.
+ * User existence does not depend on who is asking, so entries are keyed by the requested user id only.
+ * user-service also answers 404 when the requester does not exist, so a missing user is only cached when the
+ * requester is known to exist or is the user looked up.
+ * Concurrent lookups of the same user by the same requester share one call to user-service.
+ * Batch lookups fall back to lookups by id when user-service does not provide the batch endpoint,
+ * and the batch endpoint is probed again after a while.
+ */
+@Slf4j
+@Primary
+@Component
+public class CachingUserClient implements UserClient {
+    private final UserClient userClient;
+    private final boolean enabled;
+    private final Cache<Long, UserDto> users;
+    private final Cache<Long, String> notFoundUsers;
+    private final ConcurrentMap<UserLookup, CompletableFuture<UserDto>> inFlightLookups = new ConcurrentHashMap<>();
+    private final Duration batchLookupRetryAfter;
+    private final Clock clock;
+    private volatile Instant batchLookupDisabledUntil = Instant.MIN;
+
+    @Autowired
+    public CachingUserClient(@Qualifier(UserClient.RESILIENT_QUALIFIER) UserClient userClient,
+                             UserClientProperties properties,
+                             MeterRegistry meterRegistry) {
+        this(userClient, properties, meterRegistry, Clock.systemUTC());
+    }
+
+    CachingUserClient(UserClient userClient, UserClientProperties properties, MeterRegistry meterRegistry,
+                      Clock clock) {
+        UserClientProperties.Cache cacheProperties = properties.cache();
+        this.userClient = userClient;
+        this.enabled = cacheProperties.enabled();
+        this.batchLookupRetryAfter = cacheProperties.batchLookupRetryAfter();
+        this.clock = clock;
+        this.users = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.maximumSize())
+                .expireAfterWrite(cacheProperties.ttl())
+                .recordStats()
+                .build();
+        this.notFoundUsers = Caffeine.newBuilder()
+                .maximumSize(cacheProperties.maximumSize())
+                .expireAfterWrite(cacheProperties.notFoundTtl())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, users, "users");
+        CaffeineCacheMetrics.monitor(meterRegistry, notFoundUsers, "users.not-found");
+    }
+
+    @Override
+    public UserDto getUserById(Long userId, Long id) {
+        if (!enabled) {
+            return loadUser(userId, id);
+        }
+
+        String notFoundMessage = notFoundUsers.getIfPresent(id);
+        if (notFoundMessage != null) {
+            throw new NotFoundException(notFoundMessage);
+        }
+
+        UserDto cachedUser = users.getIfPresent(id);
+        if (cachedUser != null) {
+            return cachedUser;
+        }
+
+        try {
+            UserDto userDto = loadUser(userId, id);
+            if (userDto != null) {
+                users.put(id, userDto);
+            }
+            return userDto;
+        } catch (NotFoundException e) {
+            if (isAboutUser(userId, id)) {
+                log.debug("User id = '{}' was not found, caching negative result", id);
+                notFoundUsers.put(id, e.getMessage());
+            }
+            throw e;
+        }
+    }
+
+    private boolean isAboutUser(Long userId, Long id) {
+        return Objects.equals(userId, id) || users.getIfPresent(userId) != null;
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(Long userId, List<Long> ids) {
+        List<UserDto> foundUsers = new ArrayList<>();
+        List<Long> idsToLoad = new ArrayList<>();
+        for (Long id : ids) {
+            if (enabled && notFoundUsers.getIfPresent(id) != null) {
+                continue;
+            }
+            UserDto cachedUser = enabled ? users.getIfPresent(id) : null;
+            if (cachedUser != null) {
+                foundUsers.add(cachedUser);
+            } else {
+                idsToLoad.add(id);
+            }
+        }
+
+        if (!idsToLoad.isEmpty()) {
+            foundUsers.addAll(loadUsers(userId, idsToLoad));
+        }
+        return foundUsers;
+    }
+
+    @Override
+    public List<Long> getUserIds(Long after, Integer size) {
+        return userClient.getUserIds(after, size);
+    }
+
+    private UserDto loadUser(Long userId, Long id) {
+        UserLookup lookup = new UserLookup(userId, id);
+        CompletableFuture<UserDto> call = new CompletableFuture<>();
+        CompletableFuture<UserDto> inFlightCall = inFlightLookups.putIfAbsent(lookup, call);
+        if (inFlightCall != null) {
+            return awaitInFlightCall(inFlightCall);
+        }
+
+        try {
+            UserDto userDto = userClient.getUserById(userId, id);
+            call.complete(userDto);
+            return userDto;
+        } catch (Throwable e) {
+            // waiters must be released whatever the call fails with, or they block forever
+            call.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlightLookups.remove(lookup, call);
+        }
+    }
+
+    private UserDto awaitInFlightCall(CompletableFuture<UserDto> inFlightCall) {
+        try {
+            return inFlightCall.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    private List<UserDto> loadUsers(Long userId, List<Long> ids) {
+        boolean batchLookupNotFound = false;
+        if (ids.size() > 1 && clock.instant().isAfter(batchLookupDisabledUntil)) {
+            try {
+                List<UserDto> loadedUsers = userClient.getUsersByIds(userId, ids);
+                cacheBatchResult(ids, loadedUsers);
+                return loadedUsers;
+            } catch (NotFoundException e) {
+                batchLookupNotFound = true;
+            }
+        }
+
+        List<UserDto> loadedUsers = loadUsersById(userId, ids);
+        // user-service answers 404 both for a missing batch endpoint and for a missing requester,
+        // only users found by id show that the endpoint itself is missing
+        if (batchLookupNotFound && !loadedUsers.isEmpty()) {
+            log.warn("User service does not support batch lookup, falling back to lookups by id for {}",
+                    batchLookupRetryAfter);
+            batchLookupDisabledUntil = clock.instant().plus(batchLookupRetryAfter);
+        }
+        return loadedUsers;
+    }
+
+    private List<UserDto> loadUsersById(Long userId, List<Long> ids) {
+        List<UserDto> loadedUsers = new ArrayList<>();
+        for (Long id : ids) {
+            try {
+                UserDto userDto = getUserById(userId, id);
+                if (userDto != null) {
+                    loadedUsers.add(userDto);
+                }
+            } catch (NotFoundException e) {
+                log.debug("User id = '{}' was not found", id);
+            }
+        }
+        return loadedUsers;
+    }
+
+    private void cacheBatchResult(List<Long> requestedIds, List<UserDto> loadedUsers) {
+        if (!enabled) {
+            return;
+        }
+        loadedUsers.forEach(userDto -> users.put(userDto.id(), userDto));
+        Set<Long> loadedIds = loadedUsers.stream().map(UserDto::id).collect(Collectors.toSet());
+        requestedIds.stream()
+                .filter(id -> !loadedIds.contains(id))
+                .forEach(id -> notFoundUsers.put(id, UserClientErrorDecoder.USER_NOT_FOUND_MESSAGE));
+    }
+
+    private record UserLookup(Long userId, Long id) {
+    }
+}
@@ -0,0 +1,103 @@
+package meetup.event.client;
+
+import feign.RetryableException;
+import io.github.resilience4j.bulkhead.Bulkhead;
+import io.github.resilience4j.bulkhead.BulkheadConfig;
+import io.github.resilience4j.bulkhead.BulkheadFullException;
+import io.github.resilience4j.bulkhead.BulkheadRegistry;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedBulkheadMetrics;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserDto;
+import meetup.exception.NotFoundException;
+import meetup.exception.UserServiceRejectedException;
+import meetup.exception.UserServiceUnavailableException;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Isolates calls to user-service behind a bulkhead and a circuit breaker.
+ * Rejected calls, timeouts and server errors surface as {@link UserServiceUnavailableException}.
+ * Missing users and requests user-service refuses are answers rather than failures, so they do not open the circuit.
+ */
+@Slf4j
+@Component
+@Qualifier(UserClient.RESILIENT_QUALIFIER)
+public class ResilientUserClient implements UserClient {
+    private static final String NAME = "userClient";
+
+    private final UserClient userClient;
+    private final Bulkhead bulkhead;
+    private final CircuitBreaker circuitBreaker;
+
+    public ResilientUserClient(@Qualifier(UserClient.FEIGN_QUALIFIER) UserClient userClient,
+                               UserClientProperties properties,
+                               MeterRegistry meterRegistry) {
+        UserClientProperties.Resilience resilience = properties.resilience();
+        this.userClient = userClient;
+
+        BulkheadRegistry bulkheadRegistry = BulkheadRegistry.of(BulkheadConfig.custom()
+                .maxConcurrentCalls(resilience.maxConcurrentCalls())
+                .maxWaitDuration(resilience.maxWaitDuration())
+                .build());
+        CircuitBreakerRegistry circuitBreakerRegistry = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .failureRateThreshold(resilience.failureRateThreshold())
+                .slowCallDurationThreshold(resilience.slowCallDurationThreshold())
+                .slidingWindowSize(resilience.slidingWindowSize())
+                .minimumNumberOfCalls(resilience.minimumNumberOfCalls())
+                .waitDurationInOpenState(resilience.waitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(resilience.permittedCallsInHalfOpenState())
+                .ignoreExceptions(NotFoundException.class, UserServiceRejectedException.class,
+                        BulkheadFullException.class)
+                .build());
+        this.bulkhead = bulkheadRegistry.bulkhead(NAME);
+        this.circuitBreaker = circuitBreakerRegistry.circuitBreaker(NAME);
+        this.circuitBreaker.getEventPublisher().onStateTransition(event ->
+                log.warn("User service circuit breaker changed state: {}", event.getStateTransition()));
+
+        TaggedBulkheadMetrics.ofBulkheadRegistry(bulkheadRegistry).bindTo(meterRegistry);
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakerRegistry).bindTo(meterRegistry);
+    }
+
+    @Override
+    public UserDto getUserById(Long userId, Long id) {
+        return call(() -> userClient.getUserById(userId, id));
+    }
+
+    @Override
+    public List<UserDto> getUsersByIds(Long userId, List<Long> ids) {
+        return call(() -> userClient.getUsersByIds(userId, ids));
+    }
+
+    @Override
+    public List<Long> getUserIds(Long after, Integer size) {
+        return call(() -> userClient.getUserIds(after, size));
+    }
+
+    CircuitBreaker.State getCircuitBreakerState() {
+        return circuitBreaker.getState();
+    }
+
+    private <T> T call(Supplier<T> userServiceCall) {
+        Supplier<T> decoratedCall = CircuitBreaker.decorateSupplier(circuitBreaker,
+                Bulkhead.decorateSupplier(bulkhead, userServiceCall));
+        try {
+            return decoratedCall.get();
+        } catch (CallNotPermittedException e) {
+            throw new UserServiceUnavailableException("User service is unavailable, circuit breaker is open", e);
+        } catch (BulkheadFullException e) {
+            throw new UserServiceUnavailableException("Too many concurrent calls to user service", e);
+        } catch (RetryableException e) {
+            throw new UserServiceUnavailableException("User service did not respond in time", e);
+        }
+    }
+}
@@ -6,10 +6,32 @@ import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 
-@FeignClient(name = "userClient", url = "${app.user-service.url}", configuration = UserClientConfiguration.class)
+import java.util.List;
+
+@FeignClient(name = "userClient", url = "${app.user-service.url}", configuration = UserClientConfiguration.class,
+        primary = false, qualifiers = UserClient.FEIGN_QUALIFIER)
 public interface UserClient {
+    String FEIGN_QUALIFIER = "feignUserClient";
+    String RESILIENT_QUALIFIER = "resilientUserClient";
+
     @GetMapping("/users/{id}")
     UserDto getUserById(@RequestHeader("X-User-Id") Long userId,
                         @PathVariable Long id);
-}
\ No newline at end of file
+
+    /**
+     * Batch lookup. Ids that do not belong to any user are omitted from the result.
+     */
+    @GetMapping("/users")
+    List<UserDto> getUsersByIds(@RequestHeader("X-User-Id") Long userId,
+                                @RequestParam List<Long> ids);
+
+    /**
+     * Page of ids of all registered users greater than {@code after}, or from the first one when it is {@code null},
+     * ordered by id. Used to bootstrap the local {@link UserIdProjection}.
+     */
+    @GetMapping("/users/ids")
+    List<Long> getUserIds(@RequestParam(required = false) Long after,
+                          @RequestParam Integer size);
+}
@@ -3,16 +3,25 @@ package meetup.event.client;
 import feign.Response;
 import feign.codec.ErrorDecoder;
 import meetup.exception.NotFoundException;
+import meetup.exception.UserServiceRejectedException;
+import meetup.exception.UserServiceUnavailableException;
 
 public class UserClientErrorDecoder implements ErrorDecoder {
+    public static final String USER_NOT_FOUND_MESSAGE = "User was not found";
+
     @Override
     public Exception decode(String s, Response response) {
-
-        switch (response.status()) {
-            case 404:
-                return new NotFoundException("User was not found");
-            default:
-                return new Exception("Unknown error");
+        int status = response.status();
+        if (status == 404) {
+            return new NotFoundException(USER_NOT_FOUND_MESSAGE);
+        }
+        if (status == 429 || status >= 500) {
+            return new UserServiceUnavailableException("User service responded with status " + status);
+        }
+        if (status >= 400) {
+            // the request was refused, such as 400, 401 or 403, which says nothing about the health of user-service
+            return new UserServiceRejectedException("User service rejected the request with status " + status);
         }
+        return new IllegalStateException("Unknown error, user service responded with status " + status);
     }
-}
\ No newline at end of file
+}
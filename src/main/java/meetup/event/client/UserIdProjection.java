@@ -0,0 +1,114 @@
+package meetup.event.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserChangeDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Local copy of the ids of all users known to user-service.
+ * It is loaded in bulk by {@link UserIdProjectionLoader} and kept current by user change notifications,
+ * which any inbound adapter delivers through {@link #apply(UserChangeDto)}.
+ * Existence checks may rely on it only while it is {@link #isFresh() fresh}.
+ * Once it has gone stale, changes may have been missed, so it is fresh again only after a new bootstrap.
+ */
+@Slf4j
+@Component
+public class UserIdProjection {
+    private final Set<Long> userIds = ConcurrentHashMap.newKeySet();
+    private final Set<Long> createdDuringBootstrap = new HashSet<>();
+    private final Set<Long> deletedDuringBootstrap = new HashSet<>();
+    private final Duration staleAfter;
+    private final Clock clock;
+    private volatile boolean bootstrapped;
+    private volatile Instant lastUpdated = Instant.MIN;
+
+    @Autowired
+    public UserIdProjection(UserClientProperties properties, MeterRegistry meterRegistry) {
+        this(properties, meterRegistry, Clock.systemUTC());
+    }
+
+    UserIdProjection(UserClientProperties properties, MeterRegistry meterRegistry, Clock clock) {
+        this.staleAfter = properties.projection().staleAfter();
+        this.clock = clock;
+        Gauge.builder("users.projection.size", userIds, Set::size)
+                .description("Number of user ids in the local projection")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Whether the projection is loaded and has heard from user-service within the staleness window.
+     */
+    public boolean isFresh() {
+        return bootstrapped && !isStale();
+    }
+
+    public boolean contains(Long userId) {
+        return userIds.contains(userId);
+    }
+
+    /**
+     * Marks the start of reading a bulk snapshot. From here on the projection is not fresh, and the user changes
+     * received are remembered until the snapshot is {@link #bootstrap(Collection) applied}.
+     */
+    public synchronized void startBootstrap() {
+        bootstrapped = false;
+    }
+
+    /**
+     * Replaces the projection with a bulk snapshot of user ids.
+     * Users created or deleted while the snapshot was being read are added or left out.
+     */
+    public synchronized void bootstrap(Collection<Long> snapshot) {
+        Set<Long> currentUserIds = new HashSet<>(snapshot);
+        currentUserIds.addAll(createdDuringBootstrap);
+        currentUserIds.removeAll(deletedDuringBootstrap);
+        userIds.retainAll(currentUserIds);
+        userIds.addAll(currentUserIds);
+        createdDuringBootstrap.clear();
+        deletedDuringBootstrap.clear();
+        bootstrapped = true;
+        lastUpdated = clock.instant();
+        log.info("User id projection bootstrapped with {} users", userIds.size());
+    }
+
+    public synchronized void apply(UserChangeDto change) {
+        if (bootstrapped && isStale()) {
+            log.warn("User id projection went stale, it will be trusted again after the next bootstrap");
+            bootstrapped = false;
+        }
+        switch (change.type()) {
+            case CREATED -> {
+                userIds.add(change.userId());
+                if (!bootstrapped) {
+                    createdDuringBootstrap.add(change.userId());
+                    deletedDuringBootstrap.remove(change.userId());
+                }
+            }
+            case DELETED -> {
+                userIds.remove(change.userId());
+                if (!bootstrapped) {
+                    deletedDuringBootstrap.add(change.userId());
+                    createdDuringBootstrap.remove(change.userId());
+                }
+            }
+            case HEARTBEAT -> log.trace("User change stream heartbeat received");
+        }
+        lastUpdated = clock.instant();
+    }
+
+    private boolean isStale() {
+        return !lastUpdated.plus(staleAfter).isAfter(clock.instant());
+    }
+}
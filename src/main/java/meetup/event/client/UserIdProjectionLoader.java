@@ -0,0 +1,78 @@
+package meetup.event.client;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import meetup.event.config.UserClientProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Loads the {@link UserIdProjection} from user-service page by page once the application is ready,
+ * and again whenever it is found not fresh. Until loading succeeds existence checks keep going to user-service.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "app.user-service.projection.enabled", havingValue = "true")
+public class UserIdProjectionLoader {
+    private final UserIdProjection userIdProjection;
+    private final UserClient userClient;
+    private final UserClientProperties properties;
+    private final ExecutorService userLookupExecutor;
+    private final AtomicBoolean loading = new AtomicBoolean();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        loadInBackground();
+    }
+
+    /**
+     * Loads the projection in the background unless it is fresh or already being loaded.
+     */
+    public void loadIfNotFresh() {
+        if (!userIdProjection.isFresh()) {
+            loadInBackground();
+        }
+    }
+
+    private void loadInBackground() {
+        if (loading.compareAndSet(false, true)) {
+            userLookupExecutor.execute(() -> {
+                try {
+                    load();
+                } finally {
+                    loading.set(false);
+                }
+            });
+        }
+    }
+
+    void load() {
+        int pageSize = properties.projection().bootstrapPageSize();
+        List<Long> snapshot = new ArrayList<>();
+        userIdProjection.startBootstrap();
+        try {
+            // pages follow the last id read, so users deleted meanwhile do not shift later users out of the snapshot
+            Long after = null;
+            List<Long> page;
+            do {
+                page = userClient.getUserIds(after, pageSize);
+                snapshot.addAll(page);
+                if (!page.isEmpty()) {
+                    after = page.getLast();
+                }
+            } while (page.size() == pageSize);
+        } catch (RuntimeException e) {
+            log.warn("Failed to load user id projection, user existence will be checked in user-service", e);
+            return;
+        }
+        userIdProjection.bootstrap(snapshot);
+    }
+}
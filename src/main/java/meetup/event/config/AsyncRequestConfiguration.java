@@ -0,0 +1,30 @@
+package meetup.event.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Streaming responses such as the event export are written on virtual threads.
+ * The export limiter bounds how many of them hold a database connection at the same time.
+ */
+@Configuration
+public class AsyncRequestConfiguration implements WebMvcConfigurer {
+    @Value("${app.event.export.max-concurrent:4}")
+    private int maxConcurrentStreams;
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("mvc-async-");
+        executor.setVirtualThreads(true);
+        configurer.setTaskExecutor(executor);
+    }
+
+    @Bean
+    public ExportConcurrencyLimiter exportConcurrencyLimiter() {
+        return new ExportConcurrencyLimiter(maxConcurrentStreams);
+    }
+}
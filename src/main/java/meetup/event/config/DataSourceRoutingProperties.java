@@ -0,0 +1,35 @@
+package meetup.event.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Routing of read-only transactions to PostgreSQL replicas. A replica is used while it answers health checks
+ * and lags behind the primary by no more than {@code maxReplicationLag}. When no replica qualifies,
+ * reads go to the primary unless {@code fallbackToPrimary} is cleared. Replica users need the pg_read_all_stats
+ * role, otherwise a replica is never seen streaming from the primary and is not used.
+ */
+@ConfigurationProperties(prefix = "app.datasource.routing")
+public record DataSourceRoutingProperties(
+        @DefaultValue("false")
+        boolean enabled,
+        @DefaultValue
+        List<Replica> replicas,
+        @DefaultValue("10s")
+        Duration maxReplicationLag,
+        @DefaultValue("true")
+        boolean fallbackToPrimary,
+        @DefaultValue("5s")
+        Duration healthCheckInterval
+) {
+
+    public record Replica(
+            String url,
+            String username,
+            String password
+    ) {
+    }
+}
@@ -0,0 +1,37 @@
+package meetup.event.config;
+
+import lombok.RequiredArgsConstructor;
+import meetup.event.service.event.EventFacetConsistencyCheck;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * Runs the facet consistency check periodically.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.event.facets.consistency-check.enabled", havingValue = "true")
+public class EventFacetConsistencyConfiguration {
+
+    @Bean
+    public FacetConsistencySchedule facetConsistencySchedule(EventFacetConsistencyCheck eventFacetConsistencyCheck,
+                                                             EventFacetProperties properties) {
+        return new FacetConsistencySchedule(eventFacetConsistencyCheck, properties);
+    }
+
+    @RequiredArgsConstructor
+    public static class FacetConsistencySchedule implements SchedulingConfigurer {
+        private final EventFacetConsistencyCheck eventFacetConsistencyCheck;
+        private final EventFacetProperties properties;
+
+        @Override
+        public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+            taskRegistrar.addFixedDelayTask(eventFacetConsistencyCheck::check,
+                    properties.consistencyCheck().interval());
+        }
+    }
+}
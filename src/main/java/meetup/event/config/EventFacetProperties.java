@@ -0,0 +1,25 @@
+package meetup.event.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * Facet counts of events. While {@code consistencyCheck} is enabled, the counts are compared with the events table
+ * every {@code interval} and repaired when they differ.
+ */
+@ConfigurationProperties(prefix = "app.event.facets")
+public record EventFacetProperties(
+        @DefaultValue
+        ConsistencyCheck consistencyCheck
+) {
+
+    public record ConsistencyCheck(
+            @DefaultValue("false")
+            boolean enabled,
+            @DefaultValue("1h")
+            Duration interval
+    ) {
+    }
+}
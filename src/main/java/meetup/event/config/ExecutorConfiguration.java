@@ -0,0 +1,19 @@
+package meetup.event.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Configuration
+public class ExecutorConfiguration {
+
+    /**
+     * Runs blocking calls to user-service off the request thread, so they can overlap with database work.
+     */
+    @Bean(destroyMethod = "close")
+    public ExecutorService userLookupExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
+    }
+}
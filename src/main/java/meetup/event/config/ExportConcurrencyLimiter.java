@@ -0,0 +1,32 @@
+package meetup.event.config;
+
+import meetup.exception.TooManyRequestsException;
+
+import java.util.concurrent.Semaphore;
+
+/**
+ * Bounds how many exports stream at the same time, each of them holds a database connection.
+ * Exports over the limit are turned away at once instead of waiting on a request thread.
+ */
+public class ExportConcurrencyLimiter {
+    private final Semaphore permits;
+
+    public ExportConcurrencyLimiter(int maxConcurrentExports) {
+        this.permits = new Semaphore(maxConcurrentExports);
+    }
+
+    /**
+     * Takes a slot for an export, which has to be {@link #release() released} when the export ends.
+     *
+     * @throws TooManyRequestsException when every slot is taken
+     */
+    public void acquire() {
+        if (!permits.tryAcquire()) {
+            throw new TooManyRequestsException("Too many exports are running, retry later");
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+}
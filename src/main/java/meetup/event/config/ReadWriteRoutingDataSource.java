@@ -0,0 +1,117 @@
+package meetup.event.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to healthy replicas in turn and everything else to the primary.
+ * It has to be wrapped in a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy},
+ * so the connection is taken after the transaction has been marked read-only.
+ */
+@Slf4j
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    static final String PRIMARY = "primary";
+    // the last replayed transaction only dates the lag while WAL is waiting to be replayed,
+    // a replica that has replayed everything it received is caught up however idle the primary is.
+    // That only holds while it streams from the primary: a replica cut off from it has replayed everything it
+    // received too, so its lag is unknown. The status is visible to roles with pg_read_all_stats only
+    private static final String REPLICATION_LAG_QUERY = """
+            SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0
+                        WHEN NOT EXISTS (SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming') THEN NULL
+                        WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0
+                        ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END
+            """;
+
+    private final Map<String, DataSource> replicas = new HashMap<>();
+    private final List<String> replicaKeys = new ArrayList<>();
+    private final boolean fallbackToPrimary;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+    private volatile List<String> healthyReplicaKeys = List.of();
+
+    public ReadWriteRoutingDataSource(DataSource primary, List<DataSource> replicas, boolean fallbackToPrimary) {
+        this.fallbackToPrimary = fallbackToPrimary;
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + i;
+            this.replicas.put(key, replicas.get(i));
+            this.replicaKeys.add(key);
+            targetDataSources.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || replicaKeys.isEmpty()) {
+            return PRIMARY;
+        }
+
+        List<String> candidates = healthyReplicaKeys;
+        if (candidates.isEmpty()) {
+            if (fallbackToPrimary) {
+                return PRIMARY;
+            }
+            candidates = replicaKeys;
+        }
+        return candidates.get(Math.floorMod(nextReplica.getAndIncrement(), candidates.size()));
+    }
+
+    /**
+     * Marks as healthy the replicas that answer, stream from the primary and lag behind it by no more than
+     * {@code maxLag}.
+     */
+    public void checkReplicas(Duration maxLag) {
+        List<String> healthy = new ArrayList<>();
+        for (String key : replicaKeys) {
+            try {
+                Double lagSeconds = replicationLagSeconds(replicas.get(key));
+                if (lagSeconds == null) {
+                    log.warn("Replica {} is not streaming from the primary", key);
+                } else if (lagSeconds * 1000 <= maxLag.toMillis()) {
+                    healthy.add(key);
+                } else {
+                    log.warn("Replica {} lags behind the primary by {} s", key, lagSeconds);
+                }
+            } catch (SQLException e) {
+                log.warn("Replica {} is unavailable: {}", key, e.getMessage());
+            }
+        }
+        if (!healthy.equals(healthyReplicaKeys)) {
+            log.info("Healthy replicas changed from {} to {}", healthyReplicaKeys, healthy);
+        }
+        healthyReplicaKeys = List.copyOf(healthy);
+    }
+
+    List<String> getHealthyReplicaKeys() {
+        return healthyReplicaKeys;
+    }
+
+    /**
+     * Returns {@code null} when the lag is unknown, because the replica does not stream from the primary.
+     */
+    private Double replicationLagSeconds(DataSource replica) throws SQLException {
+        try (Connection connection = replica.getConnection();
+             Statement statement = connection.createStatement();
+             ResultSet resultSet = statement.executeQuery(REPLICATION_LAG_QUERY)) {
+            resultSet.next();
+            double lagSeconds = resultSet.getDouble(1);
+            return resultSet.wasNull() ? null : lagSeconds;
+        }
+    }
+}
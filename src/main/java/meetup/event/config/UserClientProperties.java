@@ -0,0 +1,93 @@
+package meetup.event.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "app.user-service")
+public record UserClientProperties(
+        @DefaultValue
+        Cache cache,
+        @DefaultValue
+        Resilience resilience,
+        @DefaultValue
+        Transport transport,
+        @DefaultValue
+        Projection projection
+) {
+
+    /**
+     * Local cache of user lookups. Found users are kept for {@code ttl},
+     * users reported as missing by user-service are kept for the shorter {@code notFoundTtl}.
+     * When user-service turns out not to provide the batch endpoint, it is probed again after
+     * {@code batchLookupRetryAfter}.
+     */
+    public record Cache(
+            @DefaultValue("true")
+            boolean enabled,
+            @DefaultValue("5m")
+            Duration ttl,
+            @DefaultValue("30s")
+            Duration notFoundTtl,
+            @DefaultValue("10000")
+            long maximumSize,
+            @DefaultValue("10m")
+            Duration batchLookupRetryAfter
+    ) {
+    }
+
+    /**
+     * Bulkhead and circuit breaker around calls to user-service.
+     * Connect and read deadlines are set through {@code spring.cloud.openfeign.client.config.userClient}.
+     */
+    public record Resilience(
+            @DefaultValue("50")
+            int maxConcurrentCalls,
+            @DefaultValue("100ms")
+            Duration maxWaitDuration,
+            @DefaultValue("50")
+            float failureRateThreshold,
+            @DefaultValue("20")
+            int slidingWindowSize,
+            @DefaultValue("10")
+            int minimumNumberOfCalls,
+            @DefaultValue("2s")
+            Duration slowCallDurationThreshold,
+            @DefaultValue("10s")
+            Duration waitDurationInOpenState,
+            @DefaultValue("3")
+            int permittedCallsInHalfOpenState
+    ) {
+    }
+
+    /**
+     * Pooled HTTP transport. Pool sizes and connection time to live are set through
+     * {@code spring.cloud.openfeign.httpclient}, idle connections are closed after {@code idleConnectionTimeout}.
+     */
+    public record Transport(
+            @DefaultValue("30s")
+            Duration idleConnectionTimeout
+    ) {
+    }
+
+    /**
+     * Local projection of known user ids. It is loaded from user-service in pages of {@code bootstrapPageSize}
+     * and is trusted for existence checks until no user change has been received for {@code staleAfter}.
+     * A projection that is not fresh is loaded again every {@code bootstrapRetryInterval}.
+     * user-service pushes changes with {@code sharedSecret} in a header, which must be set when the projection
+     * is enabled.
+     */
+    public record Projection(
+            @DefaultValue("false")
+            boolean enabled,
+            @DefaultValue("1000")
+            int bootstrapPageSize,
+            @DefaultValue("5m")
+            Duration staleAfter,
+            @DefaultValue("1m")
+            Duration bootstrapRetryInterval,
+            String sharedSecret
+    ) {
+    }
+}
@@ -0,0 +1,37 @@
+package meetup.event.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.hc5.PoolingHttpClientConnectionManagerMetricsBinder;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.apache.hc.core5.util.TimeValue;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cloud.openfeign.clientconfig.HttpClient5FeignConfiguration.HttpClientBuilderCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Tuning for the pooled Apache HttpClient 5 transport that Spring Cloud OpenFeign picks up from the classpath.
+ * The JDK HTTP/2 client is used instead when {@code spring.cloud.openfeign.http2client.enabled} is set
+ * and {@code spring.cloud.openfeign.httpclient.hc5.enabled} is cleared.
+ */
+@Configuration
+public class UserClientTransportConfiguration {
+
+    @Bean
+    public HttpClientBuilderCustomizer idleConnectionEvictionCustomizer(UserClientProperties properties) {
+        TimeValue idleConnectionTimeout = TimeValue.of(properties.transport().idleConnectionTimeout());
+        return builder -> builder
+                .evictExpiredConnections()
+                .evictIdleConnections(idleConnectionTimeout);
+    }
+
+    @Bean
+    public MeterBinder feignConnectionPoolMetrics(ObjectProvider<HttpClientConnectionManager> connectionManager) {
+        return registry -> connectionManager.ifAvailable(manager -> {
+            if (manager instanceof PoolingHttpClientConnectionManager pool) {
+                new PoolingHttpClientConnectionManagerMetricsBinder(pool, "feign").bindTo(registry);
+            }
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package meetup.event.config;
+
+import lombok.RequiredArgsConstructor;
+import meetup.event.client.UserIdProjectionLoader;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.config.FixedDelayTask;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+import java.time.Duration;
+
+/**
+ * Loads the user id projection again while it is not fresh, after a failed or outdated bootstrap.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "app.user-service.projection.enabled", havingValue = "true")
+public class UserIdProjectionConfiguration {
+
+    @Bean
+    public UserIdProjectionSchedule userIdProjectionSchedule(UserIdProjectionLoader userIdProjectionLoader,
+                                                             UserClientProperties properties) {
+        return new UserIdProjectionSchedule(userIdProjectionLoader, properties);
+    }
+
+    @RequiredArgsConstructor
+    public static class UserIdProjectionSchedule implements SchedulingConfigurer {
+        private final UserIdProjectionLoader userIdProjectionLoader;
+        private final UserClientProperties properties;
+
+        @Override
+        public void configureTasks(ScheduledTaskRegistrar taskRegistrar) {
+            Duration interval = properties.projection().bootstrapRetryInterval();
+            taskRegistrar.addFixedDelayTask(
+                    new FixedDelayTask(userIdProjectionLoader::loadIfNotFresh, interval, interval));
+        }
+    }
+}
@@ -1,5 +1,7 @@
 package meetup.event.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -7,24 +9,39 @@ import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.PositiveOrZero;
+import jakarta.validation.constraints.Size;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import meetup.event.dto.event.EventBulkResultDto;
+import meetup.event.dto.event.EventCursor;
 import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventTotalMode;
+import meetup.event.dto.event.EventVersion;
 import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
 import meetup.event.dto.event.NewEventDto;
 import meetup.event.dto.event.UpdatedEventDto;
 import meetup.event.dto.teammember.NewTeamMemberDto;
 import meetup.event.dto.teammember.TeamMemberDto;
+import meetup.event.dto.teammember.TeamRosterMemberDto;
+import meetup.event.dto.teammember.TeamRosterResultDto;
 import meetup.event.dto.teammember.UpdateTeamMemberDto;
+import meetup.event.config.ExportConcurrencyLimiter;
 import meetup.event.mapper.EventMapper;
 import meetup.event.model.event.Event;
+import meetup.event.model.event.EventRegistrationStatus;
 import meetup.event.service.event.EventService;
 import meetup.event.service.teammember.TeamMemberService;
 import meetup.exception.ErrorResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -36,8 +53,20 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @RestController
@@ -47,7 +76,19 @@ public class EventController {
     private final EventService eventService;
     private final TeamMemberService teamMemberService;
     private final EventMapper eventMapper;
+    private final ObjectMapper objectMapper;
+    private final ExportConcurrencyLimiter exportConcurrencyLimiter;
+    @Value("${app.event.export.fetch-size:1000}")
+    private int exportFlushSize;
     private static final String HEADER_X_USER_ID = "X-User-Id";
+    private static final String HEADER_X_NEXT_CURSOR = "X-Next-Cursor";
+    private static final String HEADER_X_HAS_NEXT = "X-Has-Next";
+    private static final String HEADER_X_TOTAL_COUNT = "X-Total-Count";
+    private static final String MEDIA_TYPE_NDJSON = "application/x-ndjson";
+    private static final int MAX_BULK_SIZE = 500;
+    private static final int MAX_ROSTER_SIZE = 10_000;
+    // an If-Match version no event has, so the update fails its precondition
+    private static final long NO_VERSION = -1L;
 
     @Operation(summary = "Create new event")
     @ApiResponses(value = {
@@ -72,7 +113,38 @@ public class EventController {
         return new ResponseEntity<>(eventDto, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Update event")
+    @Operation(summary = "Create new events",
+            description = "Creates up to " + MAX_BULK_SIZE + " events of one owner. Invalid events are rejected "
+                    + "one by one with their errors, the valid ones are created together. "
+                    + "Results are returned in the order of the request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Events were processed", content = {
+                    @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = EventBulkResultDto.class)))
+            }),
+            @ApiResponse(responseCode = "400", description = "No events or more than " + MAX_BULK_SIZE, content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "User not found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Unknown exception", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            })
+    })
+    @PostMapping("/bulk")
+    public List<EventBulkResultDto> createEvents(@RequestHeader(HEADER_X_USER_ID) Long userId,
+                                                 @Parameter(description = "New events data")
+                                                 @RequestBody @Size(min = 1, max = MAX_BULK_SIZE)
+                                                 List<NewEventDto> newEventDtos) {
+        log.info("---START CREATE EVENTS ENDPOINT---");
+        return eventService.createEvents(userId, newEventDtos);
+    }
+
+    @Operation(summary = "Update event",
+            description = "Update event. When If-Match is passed with the ETag of the event, the event is updated "
+                    + "only if nobody has updated it since. The ETag of the updated event is returned")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Event was updated", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = EventDto.class))
@@ -86,6 +158,12 @@ public class EventController {
             @ApiResponse(responseCode = "404", description = "Event not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
+            @ApiResponse(responseCode = "409", description = "Event was updated concurrently", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "412", description = "Event was updated since the If-Match ETag", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
             @ApiResponse(responseCode = "500", description = "Unknown exception", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             })
@@ -96,19 +174,26 @@ public class EventController {
                                                 @PathVariable Long id,
                                                 @Parameter(description = "Update task data")
                                                 @RequestBody @Valid UpdatedEventDto
-                                                        updatedEventDto) {
+                                                        updatedEventDto,
+                                                @Parameter(description = "ETag the update is conditional on")
+                                                @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                String ifMatch) {
         log.info("---START UPDATE EVENT ENDPOINT---");
-        Event event = eventService.updateEvent(userId, id, updatedEventDto);
+        Event event = eventService.updateEvent(userId, id, updatedEventDto, expectedVersion(ifMatch));
         EventDto eventDto = eventMapper.toEventDto(event);
-        return new ResponseEntity<>(eventDto, HttpStatus.OK);
+        return ResponseEntity.ok()
+                .eTag(eTag(event.getVersion(), "owner"))
+                .body(eventDto);
     }
 
     @Operation(summary = "Find event by id",
-            description = "Find event by id. Event creation datetime is shown only when requester is the owner")
+            description = "Find event by id. Event creation datetime is shown only when requester is the owner. "
+                    + "Supports If-None-Match and If-Modified-Since")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Event was retrieved", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = EventDto.class))
             }),
+            @ApiResponse(responseCode = "304", description = "Event was not modified"),
             @ApiResponse(responseCode = "404", description = "Event not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
@@ -119,21 +204,44 @@ public class EventController {
     @GetMapping("/{id}")
     public ResponseEntity<EventDto> getEventById(@RequestHeader(HEADER_X_USER_ID) Long userId,
                                                  @Parameter(description = "Event's id")
-                                                 @PathVariable Long id) {
+                                                 @PathVariable Long id,
+                                                 WebRequest request,
+                                                 HttpServletResponse response) {
         log.info("---START GET EVENT BY ID ENDPOINT---");
+        EventVersion version = eventService.getEventVersion(id);
+        // the owner also sees the creation datetime, so owner and others get different representations.
+        // Shared caches have to keep them apart for 304 responses as well
+        response.addHeader(HttpHeaders.VARY, HEADER_X_USER_ID);
+        String eTag = eTag(version.version(), eventRepresentation(version.ownerId(), userId));
+        if (request.checkNotModified(eTag, toEpochMilli(version.updatedDateTime()))) {
+            return null;
+        }
         Event event = eventService.getEventByEventId(id, userId);
         EventDto eventDto = eventMapper.toEventDto(event);
-        return new ResponseEntity<>(eventDto, HttpStatus.OK);
+        // the event may have been read from a cache or a replica, or updated since its version was checked,
+        // so the validators set by the check are replaced with those of the event returned
+        response.setHeader(HttpHeaders.ETAG, eTag(event.getVersion(), eventRepresentation(event.getOwnerId(), userId)));
+        response.setDateHeader(HttpHeaders.LAST_MODIFIED, toEpochMilli(event.getUpdatedDateTime()));
+        return ResponseEntity.ok(eventDto);
     }
 
     @Operation(summary = "Find events by owner and registration status",
-            description = "Find events by owner and registration status with pagination")
+            description = "Find events by owner and registration status with pagination. "
+                    + "When cursor is passed, events are ordered by start date and time, from is ignored "
+                    + "and the cursor of the next page is returned in the " + HEADER_X_NEXT_CURSOR + " header. "
+                    + "An empty cursor requests the first page. Whether more events follow is returned in the "
+                    + HEADER_X_HAS_NEXT + " header. The total number of matching events is returned in the "
+                    + HEADER_X_TOTAL_COUNT + " header only when requested with total. "
+                    + "Without a cursor, events found by text are ordered from the best match.")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Events were retrieved", content = {
                     @Content(
                             mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = EventDto.class)))
             }),
+            @ApiResponse(responseCode = "400", description = "Cursor is not valid", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
             @ApiResponse(responseCode = "500", description = "Unknown error", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             })
@@ -143,12 +251,93 @@ public class EventController {
                                                     @RequestParam(defaultValue = "0") @PositiveOrZero Integer from,
                                                     @Parameter(description = "Number of events per page")
                                                     @RequestParam(defaultValue = "10") @Positive Integer size,
+                                                    @Parameter(description = "Cursor of the page to get")
+                                                    @RequestParam(required = false) String cursor,
+                                                    @Parameter(description = "How to compute the total")
+                                                    @RequestParam(defaultValue = "NONE") EventTotalMode total,
                                                     @Parameter(description = "Search filer")
-                                                    EventSearchFilter filter) {
+                                                    @Valid EventSearchFilter filter) {
         log.info("---START GET EVENTS ENDPOINT---");
-        List<Event> events = eventService.getEvents(from, size, filter);
-        List<EventDto> eventsDto = eventMapper.toDtoList(events);
-        return new ResponseEntity<>(eventsDto, HttpStatus.OK);
+        Slice<EventDto> events = cursor == null
+                ? eventService.getEvents(from, size, filter)
+                : eventService.getEventsAfter(EventCursor.decode(cursor), size, filter);
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HEADER_X_HAS_NEXT, String.valueOf(events.hasNext()));
+        if (cursor != null && events.hasNext()) {
+            headers.set(HEADER_X_NEXT_CURSOR, EventCursor.of(events.getContent().getLast()).encode());
+        }
+        if (total != EventTotalMode.NONE) {
+            headers.set(HEADER_X_TOTAL_COUNT, String.valueOf(eventService.countEvents(filter, total)));
+        }
+        return new ResponseEntity<>(events.getContent(), headers, HttpStatus.OK);
+    }
+
+    @Operation(summary = "Count events by registration status and owner",
+            description = "Counts events per registration status and the owners with the most events. "
+                    + "The counts are kept up to date as events change, no events are scanned")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Events were counted", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = EventFacetsDto.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Unknown error", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            })
+    })
+    @GetMapping("/facets")
+    public EventFacetsDto getFacets(@Parameter(description = "Owner id")
+                                    @RequestParam(required = false) Long userId,
+                                    @Parameter(description = "Registration status")
+                                    @RequestParam(required = false) EventRegistrationStatus registrationStatus,
+                                    @Parameter(description = "Number of owners to count")
+                                    @RequestParam(defaultValue = "10") @Positive Integer owners) {
+        log.info("---START GET EVENT FACETS ENDPOINT---");
+        return eventService.getFacets(userId, registrationStatus, owners);
+    }
+
+    @Operation(summary = "Export events by owner and registration status",
+            description = "Streams all matching events ordered by id as newline-delimited JSON, one event per line")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Events are being exported", content = {
+                    @Content(mediaType = MEDIA_TYPE_NDJSON, schema = @Schema(implementation = EventDto.class))
+            }),
+            @ApiResponse(responseCode = "409", description = "Range ends before it starts", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "429", description = "Too many exports are running", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Unknown error", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            })
+    })
+    @GetMapping(path = "/export", produces = MEDIA_TYPE_NDJSON)
+    public ResponseEntity<StreamingResponseBody> exportEvents(@Parameter(description = "Search filer")
+                                                              @Valid EventSearchFilter filter) {
+        log.info("---START EXPORT EVENTS ENDPOINT---");
+        // once the body streams the status is committed, so the filter is checked while an error can still be sent
+        eventService.checkSearchFilter(filter);
+        ObjectWriter eventWriter = objectMapper.writerFor(EventDto.class);
+        exportConcurrencyLimiter.acquire();
+        // runs on the MVC async executor, the transaction is opened and closed by the service inside it
+        StreamingResponseBody body = outputStream -> {
+            try {
+                Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+                AtomicLong written = new AtomicLong();
+                eventService.exportEvents(filter, event -> {
+                    writeLine(writer, eventWriter, event);
+                    // the client gets each fetched batch as it is read instead of only when the buffers fill up
+                    if (written.incrementAndGet() % exportFlushSize == 0) {
+                        flush(writer);
+                    }
+                });
+                writer.flush();
+            } finally {
+                exportConcurrencyLimiter.release();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(MEDIA_TYPE_NDJSON))
+                .body(body);
     }
 
     @Operation(summary = "Delete event by id",
@@ -201,13 +390,51 @@ public class EventController {
         return new ResponseEntity<>(teamMemberDto, HttpStatus.CREATED);
     }
 
-    @Operation(summary = "Get team members by event id")
+    @Operation(summary = "Add or update many team members of event",
+            description = "Adds up to " + MAX_ROSTER_SIZE + " users to the team or changes their roles. "
+                    + "Only owner or manager is authorized. Users that are not found are skipped. "
+                    + "Outcomes are returned in the order of the request")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Roster was applied", content = {
+                    @Content(
+                            mediaType = "application/json",
+                            array = @ArraySchema(schema = @Schema(implementation = TeamRosterResultDto.class)))
+            }),
+            @ApiResponse(responseCode = "400", description = "No members, more than " + MAX_ROSTER_SIZE
+                    + " or a member without user id or role", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "403", description = "User is not the owner or manager of event", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "404", description = "User or event not found", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            }),
+            @ApiResponse(responseCode = "500", description = "Unknown error", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            })
+    })
+    @PostMapping("/teams/{eventId}/roster")
+    public List<TeamRosterResultDto> upsertTeamRoster(
+            @RequestHeader(HEADER_X_USER_ID) Long userId,
+            @Parameter(description = "Event's id")
+            @PathVariable Long eventId,
+            @Parameter(description = "Team members and their roles")
+            @RequestBody @Size(min = 1, max = MAX_ROSTER_SIZE) List<@Valid TeamRosterMemberDto> members) {
+        log.debug("Applying roster of '{}' members to team event id = '{}' by user id = '{}'",
+                members.size(), eventId, userId);
+        return teamMemberService.upsertRoster(userId, eventId, members);
+    }
+
+    @Operation(summary = "Get team members by event id",
+            description = "Get team members by event id. Supports If-None-Match and If-Modified-Since")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Team members were retrieved", content = {
                     @Content(
                             mediaType = "application/json",
                             array = @ArraySchema(schema = @Schema(implementation = TeamMemberDto.class)))
             }),
+            @ApiResponse(responseCode = "304", description = "Team was not modified"),
             @ApiResponse(responseCode = "404", description = "Event was not found", content = {
                     @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
             }),
@@ -219,8 +446,14 @@ public class EventController {
     public ResponseEntity<List<TeamMemberDto>> getTeamsByEventId(
             @RequestHeader(HEADER_X_USER_ID) Long userId,
             @Parameter(description = "Event's id")
-            @PathVariable Long eventId) {
+            @PathVariable Long eventId,
+            WebRequest request) {
         log.debug("User id = '{}' requests team info event id = '{}'", userId, eventId);
+        EventVersion version = eventService.getEventVersion(eventId);
+        String eTag = eTag(version.teamVersion(), "team");
+        if (request.checkNotModified(eTag, toEpochMilli(version.teamUpdatedDateTime()))) {
+            return null;
+        }
         List<TeamMemberDto> teamMemberDtos = teamMemberService.getTeamsByEventId(userId, eventId);
         return new ResponseEntity<>(teamMemberDtos, HttpStatus.OK);
     }
@@ -281,4 +514,53 @@ public class EventController {
         return new ResponseEntity<>(HttpStatus.NO_CONTENT);
     }
 
-}
\ No newline at end of file
+    private static void writeLine(Writer writer, ObjectWriter eventWriter, EventDto event) {
+        try {
+            writer.write(eventWriter.writeValueAsString(event));
+            writer.write('\n');
+        } catch (IOException e) {
+            // the client went away, stop reading events
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void flush(Writer writer) {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String eventRepresentation(Long ownerId, Long userId) {
+        return Objects.equals(ownerId, userId) ? "owner" : "public";
+    }
+
+    private static String eTag(long tag, String representation) {
+        return "\"" + tag + "-" + representation + "\"";
+    }
+
+    /**
+     * Reads the event version out of an If-Match ETag. {@code *} matches any version, and an ETag that is not
+     * one of ours matches none.
+     */
+    private static Long expectedVersion(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.strip().equals("*")) {
+            return null;
+        }
+        String eTag = ifMatch.strip();
+        int separator = eTag.indexOf('-');
+        if (!eTag.startsWith("\"") || separator < 0) {
+            return NO_VERSION;
+        }
+        try {
+            return Long.parseLong(eTag.substring(1, separator));
+        } catch (NumberFormatException e) {
+            return NO_VERSION;
+        }
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+}
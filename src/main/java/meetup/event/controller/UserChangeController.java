@@ -0,0 +1,78 @@
+package meetup.event.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import jakarta.validation.Valid;
+import lombok.extern.slf4j.Slf4j;
+import meetup.event.client.UserIdProjection;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserChangeDto;
+import meetup.exception.ErrorResponse;
+import meetup.exception.NotAuthorizedException;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.List;
+
+/**
+ * HTTP push adapter for user change notifications sent by user-service.
+ * Only requests carrying the shared secret are applied, since a forged deletion would reject real users.
+ */
+@Slf4j
+@RestController
+@RequestMapping(path = "/internal/user-changes")
+@ConditionalOnProperty(name = "app.user-service.projection.enabled", havingValue = "true")
+public class UserChangeController {
+    static final String HEADER_SHARED_SECRET = "X-User-Changes-Secret";
+
+    private final UserIdProjection userIdProjection;
+    private final byte[] sharedSecret;
+
+    public UserChangeController(UserIdProjection userIdProjection, UserClientProperties properties) {
+        String sharedSecret = properties.projection().sharedSecret();
+        if (sharedSecret == null || sharedSecret.isBlank()) {
+            throw new IllegalStateException(
+                    "app.user-service.projection.shared-secret must be set when the projection is enabled");
+        }
+        this.userIdProjection = userIdProjection;
+        this.sharedSecret = sharedSecret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Operation(summary = "Apply user created, deleted and heartbeat notifications")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Notifications were applied"),
+            @ApiResponse(responseCode = "403", description = "Shared secret is missing or wrong", content = {
+                    @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))
+            })
+    })
+    @PostMapping
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void applyUserChanges(@Parameter(description = "Secret shared with user-service")
+                                 @RequestHeader(name = HEADER_SHARED_SECRET, required = false) String secret,
+                                 @Parameter(description = "User changes in the order they happened")
+                                 @RequestBody List<@Valid UserChangeDto> changes) {
+        checkSharedSecret(secret);
+        changes.forEach(userIdProjection::apply);
+        log.debug("Applied {} user changes", changes.size());
+    }
+
+    private void checkSharedSecret(String secret) {
+        // compared in constant time, so response times do not reveal how much of the secret matched
+        if (secret == null || !MessageDigest.isEqual(sharedSecret, secret.getBytes(StandardCharsets.UTF_8))) {
+            log.warn("Rejected user changes without the shared secret");
+            throw new NotAuthorizedException("User changes can only be sent by user-service");
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package meetup.event.dto.event;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+public record EventBulkResultDto(
+        @Schema(description = "Position of the event in the request")
+        int index,
+        @Schema(description = "Created event, absent when the event was rejected")
+        EventDto event,
+        @Schema(description = "Why the event was rejected, empty when it was created")
+        List<String> errors
+) {
+    public static EventBulkResultDto created(int index, EventDto event) {
+        return new EventBulkResultDto(index, event, List.of());
+    }
+
+    public static EventBulkResultDto rejected(int index, List<String> errors) {
+        return new EventBulkResultDto(index, null, errors);
+    }
+}
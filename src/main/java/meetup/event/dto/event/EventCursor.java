@@ -0,0 +1,44 @@
+package meetup.event.dto.event;
+
+import meetup.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * Position in the list of events ordered by start date and time, then by id.
+ * Clients receive it as an opaque string and pass it back to get the events that follow.
+ */
+public record EventCursor(
+        LocalDateTime startDateTime,
+        Long id
+) {
+    private static final String SEPARATOR = "|";
+
+    public static EventCursor of(EventDto event) {
+        return new EventCursor(event.startDateTime(), event.id());
+    }
+
+    /**
+     * Returns {@code null} for a blank cursor, which stands for the first page.
+     */
+    public static EventCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = decoded.indexOf(SEPARATOR);
+            return new EventCursor(LocalDateTime.parse(decoded.substring(0, separatorIndex)),
+                    Long.valueOf(decoded.substring(separatorIndex + 1)));
+        } catch (RuntimeException e) {
+            throw new InvalidCursorException("Cursor " + cursor + " is not valid", e);
+        }
+    }
+
+    public String encode() {
+        String value = startDateTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -28,6 +28,10 @@ public record EventDto(
         LocalDateTime endDateTime,
         @Schema(description = "Event's location")
         String location,
+        @Schema(description = "Event's latitude")
+        Double latitude,
+        @Schema(description = "Event's longitude")
+        Double longitude,
         @Schema(description = "Event's owner id")
         Long ownerId,
         @Schema(description = "Event's registration status")
@@ -0,0 +1,32 @@
+package meetup.event.dto.event;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import meetup.event.model.event.EventRegistrationStatus;
+
+import java.util.List;
+
+public record EventFacetsDto(
+        @Schema(description = "Number of events matching the filter")
+        long total,
+        @Schema(description = "Number of events per registration status")
+        List<RegistrationStatusCount> registrationStatuses,
+        @Schema(description = "Owners with the most events, most first")
+        List<OwnerCount> owners
+) {
+
+    public record RegistrationStatusCount(
+            @Schema(description = "Event's registration status")
+            EventRegistrationStatus registrationStatus,
+            @Schema(description = "Number of events")
+            long count
+    ) {
+    }
+
+    public record OwnerCount(
+            @Schema(description = "Event's owner id")
+            Long ownerId,
+            @Schema(description = "Number of events")
+            long count
+    ) {
+    }
+}
@@ -1,8 +1,17 @@
 package meetup.event.dto.event;
 
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Positive;
 import lombok.Builder;
 import meetup.event.model.event.EventRegistrationStatus;
+import org.springframework.format.annotation.DateTimeFormat;
+
+import java.time.LocalDateTime;
+
+import static meetup.Constants.DATA_PATTERN;
 
 @Builder
 @Schema(description = "Search filter")
@@ -10,6 +19,35 @@ public record EventSearchFilter(
         @Schema(description = "Event owner id")
         Long userId,
         @Schema(description = "Event registration status")
-        EventRegistrationStatus registrationStatus
+        EventRegistrationStatus registrationStatus,
+        @Schema(description = "Words to find in event name or description, best matches come first")
+        String text,
+        @Schema(description = "Only events that have not ended by this datetime")
+        @DateTimeFormat(pattern = DATA_PATTERN)
+        LocalDateTime rangeStart,
+        @Schema(description = "Only events that have started by this datetime")
+        @DateTimeFormat(pattern = DATA_PATTERN)
+        LocalDateTime rangeEnd,
+        @Schema(description = "Only events that have not started yet")
+        Boolean upcoming,
+        @Schema(description = "Latitude of the point to search events around")
+        @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+        @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+        Double latitude,
+        @Schema(description = "Longitude of the point to search events around")
+        @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+        @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+        Double longitude,
+        @Schema(description = "Only events within this distance in kilometers from the point")
+        @Positive(message = "Radius must be positive")
+        Double radiusKm
 ) {
-}
\ No newline at end of file
+    @AssertTrue(message = "Latitude, longitude and radius must be set together")
+    public boolean isNearComplete() {
+        return (latitude == null) == (longitude == null) && (latitude == null) == (radiusKm == null);
+    }
+
+    public boolean hasTimeWindow() {
+        return rangeStart != null || rangeEnd != null || Boolean.TRUE.equals(upcoming);
+    }
+}
@@ -0,0 +1,13 @@
+package meetup.event.dto.event;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "How the total number of matching events is computed")
+public enum EventTotalMode {
+    @Schema(description = "Total is not computed")
+    NONE,
+    @Schema(description = "Total is estimated from the database planner statistics")
+    ESTIMATE,
+    @Schema(description = "Total is counted exactly")
+    EXACT
+}
@@ -0,0 +1,18 @@
+package meetup.event.dto.event;
+
+import meetup.event.model.event.Event;
+
+import java.time.LocalDateTime;
+
+/**
+ * The outcome of a partial update and the row it was decided on. The event is only present when the update
+ * was applied. The version is the one the row had before, the dates are the ones the update would leave.
+ */
+public record EventUpdateResult(
+        EventWriteOutcome outcome,
+        Event event,
+        Long version,
+        LocalDateTime startDateTime,
+        LocalDateTime endDateTime
+) {
+}
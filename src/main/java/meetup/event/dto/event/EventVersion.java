@@ -0,0 +1,15 @@
+package meetup.event.dto.event;
+
+import java.time.LocalDateTime;
+
+/**
+ * What conditional requests need to know about an event, read without loading the event itself.
+ */
+public record EventVersion(
+        Long ownerId,
+        Long version,
+        LocalDateTime updatedDateTime,
+        LocalDateTime teamUpdatedDateTime,
+        Long teamVersion
+) {
+}
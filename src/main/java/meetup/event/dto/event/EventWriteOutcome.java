@@ -0,0 +1,12 @@
+package meetup.event.dto.event;
+
+/**
+ * Why a single-statement write of an event did or did not change the row.
+ */
+public enum EventWriteOutcome {
+    APPLIED,
+    NOT_FOUND,
+    NOT_OWNER,
+    STALE_VERSION,
+    END_BEFORE_START
+}
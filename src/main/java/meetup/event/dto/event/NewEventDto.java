@@ -1,7 +1,11 @@
 package meetup.event.dto.event;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -35,6 +39,14 @@ public record NewEventDto(
         @Schema(description = "Event's location")
         @NotBlank(message = "Location cannot be null")
         String location,
+        @Schema(description = "Event's latitude")
+        @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+        @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+        Double latitude,
+        @Schema(description = "Event's longitude")
+        @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+        @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+        Double longitude,
         @Schema(description = "Event's participants limit")
         @PositiveOrZero(message = "Participant limit must be positive or zero")
         int participantLimit,
@@ -42,4 +54,9 @@ public record NewEventDto(
         @NotNull(message = "Event's registration status cannot be null")
         EventRegistrationStatus registrationStatus
 ) {
+    @JsonIgnore
+    @AssertTrue(message = "Latitude and longitude must be set together")
+    public boolean isCoordinatesComplete() {
+        return (latitude == null) == (longitude == null);
+    }
 }
\ No newline at end of file
@@ -1,7 +1,11 @@
 package meetup.event.dto.event;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.AssertTrue;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Future;
 import jakarta.validation.constraints.Pattern;
 import jakarta.validation.constraints.PositiveOrZero;
@@ -30,10 +34,26 @@ public record UpdatedEventDto(
         @Schema(description = "Event's location")
         @Pattern(regexp = "^(?!\\s*$).+", message = "Location can not be empty")
         String location,
+        @Schema(description = "Event's latitude")
+        @DecimalMin(value = "-90", message = "Latitude must be between -90 and 90")
+        @DecimalMax(value = "90", message = "Latitude must be between -90 and 90")
+        Double latitude,
+        @Schema(description = "Event's longitude")
+        @DecimalMin(value = "-180", message = "Longitude must be between -180 and 180")
+        @DecimalMax(value = "180", message = "Longitude must be between -180 and 180")
+        Double longitude,
         @Schema(description = "Event's participants limit")
         @PositiveOrZero(message = "Participant limit must be positive or zero")
         int participantLimit,
         @Schema(description = "Event's registration status")
         EventRegistrationStatus registrationStatus
 ) {
+    /**
+     * Each coordinate given is written as is, so a lone one would leave the event with half a location.
+     */
+    @JsonIgnore
+    @AssertTrue(message = "Latitude and longitude must be set together")
+    public boolean isCoordinatesComplete() {
+        return (latitude == null) == (longitude == null);
+    }
 }
\ No newline at end of file
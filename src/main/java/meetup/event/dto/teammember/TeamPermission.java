@@ -0,0 +1,17 @@
+package meetup.event.dto.teammember;
+
+import meetup.event.model.teammember.TeamMemberRole;
+
+/**
+ * What a user may do with the team of an event, and the role of the team member the request is about.
+ * A role is {@code null} when the user is not in the team.
+ */
+public record TeamPermission(
+        boolean owner,
+        TeamMemberRole role,
+        TeamMemberRole memberRole
+) {
+    public boolean canManageTeam() {
+        return owner || role == TeamMemberRole.MANAGER;
+    }
+}
@@ -0,0 +1,15 @@
+package meetup.event.dto.teammember;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import jakarta.validation.constraints.NotNull;
+import meetup.event.model.teammember.TeamMemberRole;
+
+public record TeamRosterMemberDto(
+        @Schema(description = "Team member's user id")
+        @NotNull(message = "User ID cannot be null")
+        Long userId,
+        @Schema(description = "Team member's role")
+        @NotNull(message = "User Role cannot be null")
+        TeamMemberRole role
+) {
+}
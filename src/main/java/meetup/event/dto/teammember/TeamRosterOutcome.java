@@ -0,0 +1,9 @@
+package meetup.event.dto.teammember;
+
+public enum TeamRosterOutcome {
+    ADDED,
+    UPDATED,
+    UNCHANGED,
+    USER_NOT_FOUND,
+    DUPLICATE
+}
@@ -0,0 +1,15 @@
+package meetup.event.dto.teammember;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import meetup.event.model.teammember.TeamMemberRole;
+
+public record TeamRosterResultDto(
+        @Schema(description = "Team member's user id")
+        Long userId,
+        @Schema(description = "Requested role")
+        TeamMemberRole role,
+        @Schema(description = "What happened to the team member. A user listed more than once is applied "
+                + "the first time and reported as DUPLICATE after that")
+        TeamRosterOutcome outcome
+) {
+}
@@ -0,0 +1,10 @@
+package meetup.event.dto.user;
+
+import jakarta.validation.constraints.NotNull;
+
+public record UserChangeDto(
+        @NotNull
+        UserChangeType type,
+        Long userId
+) {
+}
@@ -0,0 +1,7 @@
+package meetup.event.dto.user;
+
+public enum UserChangeType {
+    CREATED,
+    DELETED,
+    HEARTBEAT
+}
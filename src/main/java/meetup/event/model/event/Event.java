@@ -7,22 +7,33 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.time.LocalDateTime;
 
 @Entity
 @Table(name = "events")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = Event.CACHE_REGION)
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
 @ToString
-@Builder
+@Builder(toBuilder = true)
 public class Event {
+    public static final String CACHE_REGION = "events";
 
+    /**
+     * The sequence backing the identity column. Ids are taken 50 at a time, unlike IDENTITY this lets
+     * Hibernate batch inserts. It also means saving an event does not insert it until the session is flushed.
+     */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "events_id_seq")
+    @SequenceGenerator(name = "events_id_seq", sequenceName = "events_id_seq", allocationSize = 50)
     private Long id;
 
     private String name;
@@ -32,12 +43,34 @@ public class Event {
     @CreationTimestamp
     private LocalDateTime createdDateTime;
 
+    @CreationTimestamp
+    private LocalDateTime updatedDateTime;
+
+    /**
+     * Changes whenever a team member is added, updated or removed. Team changes do not conflict with
+     * updates of the event, so this does not increment {@link #version}.
+     */
+    @CreationTimestamp
+    @OptimisticLock(excluded = true)
+    private LocalDateTime teamUpdatedDateTime;
+
+    /**
+     * Incremented with {@link #teamUpdatedDateTime}, so team changes within the same clock tick still tell apart.
+     * Only the database writes it.
+     */
+    @Column(insertable = false, updatable = false)
+    private Long teamVersion;
+
     private LocalDateTime startDateTime;
 
     private LocalDateTime endDateTime;
 
     private String location;
 
+    private Double latitude;
+
+    private Double longitude;
+
     @Column(name = "owner_id")
     private Long ownerId;
 
@@ -47,4 +80,10 @@ public class Event {
     @Column(name = "registration_status")
     @Enumerated(EnumType.STRING)
     private EventRegistrationStatus registrationStatus;
+
+    /**
+     * Checked and incremented by every update, so concurrent updates of the event cannot overwrite each other.
+     */
+    @Version
+    private Long version;
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package meetup.event.model.teammember;
 
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.EmbeddedId;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -10,6 +11,8 @@ import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Getter
 @Setter
@@ -17,8 +20,13 @@ import lombok.Setter;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "team_members")
+@Table(name = TeamMember.TABLE_NAME)
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = TeamMember.CACHE_REGION)
 public class TeamMember {
+    public static final String TABLE_NAME = "team_members";
+    public static final String CACHE_REGION = "team-members";
+
     @EmbeddedId
     private TeamMemberId id;
 
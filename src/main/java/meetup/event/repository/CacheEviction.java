@@ -0,0 +1,49 @@
+package meetup.event.repository;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+
+/**
+ * Drops second-level cache entries that a native statement has made stale, once the transaction commits.
+ * Dropped earlier, they could be cached again by a concurrent reader that still sees the rows before the commit.
+ */
+public final class CacheEviction {
+
+    private CacheEviction() {
+    }
+
+    /**
+     * Evicts the entities with the given ids, and outdates the cached query results that read any of
+     * {@code querySpaces}, the tables the statement wrote.
+     */
+    public static void afterCommit(EntityManager entityManager, Class<?> entityClass, Collection<?> ids,
+                                   String... querySpaces) {
+        SessionImplementor session = entityManager.unwrap(SessionImplementor.class);
+        Runnable eviction = () -> {
+            CacheImplementor cache = session.getFactory().getCache();
+            ids.forEach(id -> cache.evictEntityData(entityClass, id));
+            // there are no timestamps when the second-level cache is disabled
+            TimestampsCache timestampsCache = cache.getTimestampsCache();
+            if (querySpaces.length > 0 && timestampsCache != null) {
+                timestampsCache.invalidate(querySpaces, session);
+            }
+        };
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            eviction.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                eviction.run();
+            }
+        });
+    }
+}
@@ -1,8 +1,17 @@
 package meetup.event.repository.event;
 
+import meetup.event.dto.event.EventVersion;
 import meetup.event.model.event.Event;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
 
-public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event> {
-}
\ No newline at end of file
+import java.util.Optional;
+
+public interface EventRepository extends JpaRepository<Event, Long>, JpaSpecificationExecutor<Event>,
+        EventRepositoryCustom {
+
+    @Query("select new meetup.event.dto.event.EventVersion(e.ownerId, e.version, e.updatedDateTime, "
+            + "e.teamUpdatedDateTime, e.teamVersion) from Event e where e.id = ?1")
+    Optional<EventVersion> findVersionById(Long id);
+}
@@ -0,0 +1,94 @@
+package meetup.event.repository.event;
+
+import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
+import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventUpdateResult;
+import meetup.event.dto.event.EventWriteOutcome;
+import meetup.event.dto.event.UpdatedEventDto;
+import meetup.event.model.event.Event;
+import meetup.event.model.event.EventRegistrationStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
+public interface EventRepositoryCustom {
+
+    /**
+     * Page of events without the count query {@code findAll(spec, pageable)} runs.
+     * One extra row is fetched to tell whether a next page exists.
+     * Columns are selected straight into {@link EventDto}, no managed entities are loaded.
+     */
+    Slice<EventDto> findDtoSlice(Specification<Event> spec, Pageable pageable);
+
+    /**
+     * Like {@link #findDtoSlice}, but events are ordered from the best match to {@code text}
+     * unless {@code pageable} is sorted.
+     */
+    Slice<EventDto> findDtoSliceByRelevance(Specification<Event> spec, String text, Pageable pageable);
+
+    /**
+     * Events read through a database cursor {@code fetchSize} rows at a time. Like {@link #findDtoSlice},
+     * no managed entities are loaded, so the persistence context does not grow while the stream is consumed.
+     * The stream must be consumed inside a transaction and closed.
+     */
+    Stream<EventDto> streamDtos(Specification<Event> spec, Sort sort, int fetchSize);
+
+    /**
+     * Number of events matching the filter as estimated by the Postgres planner statistics.
+     * Returns {@code -1} when the table has not been analyzed yet.
+     */
+    long estimateCount(EventSearchFilter filter);
+
+    /**
+     * Number of events per registration status, read from the {@code event_facets} table the database triggers
+     * keep in step with {@code events}. {@code null} arguments do not restrict the counts.
+     */
+    List<EventFacetsDto.RegistrationStatusCount> countByRegistrationStatusFacet(Long ownerId,
+                                                                               EventRegistrationStatus status);
+
+    /**
+     * The {@code limit} owners with the most events, read from {@code event_facets} like
+     * {@link #countByRegistrationStatusFacet}.
+     */
+    List<EventFacetsDto.OwnerCount> countByOwnerFacet(Long ownerId, EventRegistrationStatus status, int limit);
+
+    /**
+     * Number of facets whose count differs from the events table. Both tables are read in one snapshot,
+     * so writes in flight do not show up as mismatches.
+     */
+    long countFacetMismatches();
+
+    /**
+     * Recounts the events and overwrites the facets that differ. Writes to events wait until the transaction ends,
+     * otherwise their trigger updates could be overwritten by stale counts.
+     * Returns the number of facets repaired.
+     */
+    long repairFacets();
+
+    /**
+     * Sets the fields given in {@code updatedEventDto} in a single statement, provided the event is owned by
+     * {@code ownerId}, still has {@code expectedVersion} unless it is {@code null}, and does not end before
+     * it starts. Otherwise the row is left as is and the outcome tells which condition failed.
+     */
+    EventUpdateResult updatePartially(Long eventId, Long ownerId, UpdatedEventDto updatedEventDto,
+                                      LocalDateTime updatedDateTime, Long expectedVersion);
+
+    /**
+     * Deletes the event together with its team in a single statement, provided it is owned by {@code ownerId}.
+     * Otherwise the row is left as is and the outcome tells why. The cached team members are dropped once the
+     * transaction commits, the database removes them with ON DELETE CASCADE, which Hibernate does not see.
+     */
+    EventWriteOutcome deleteIfOwned(Long eventId, Long ownerId);
+
+    /**
+     * Sets when the team of the event last changed, without loading the event or incrementing its version,
+     * so team changes never conflict with updates of the event. Returns {@code false} when there is no such event.
+     */
+    boolean markTeamUpdated(Long eventId, LocalDateTime teamUpdatedDateTime);
+}
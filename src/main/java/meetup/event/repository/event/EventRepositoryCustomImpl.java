@@ -0,0 +1,467 @@
+package meetup.event.repository.event;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
+import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventUpdateResult;
+import meetup.event.dto.event.EventWriteOutcome;
+import meetup.event.dto.event.UpdatedEventDto;
+import meetup.event.model.event.Event;
+import meetup.event.model.event.EventRegistrationStatus;
+import meetup.event.model.teammember.TeamMember;
+import meetup.event.model.teammember.TeamMemberId;
+import meetup.event.repository.CacheEviction;
+import org.hibernate.jpa.AvailableHints;
+import org.hibernate.query.NativeQuery;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+public class EventRepositoryCustomImpl implements EventRepositoryCustom {
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+    // owner ids and statuses may be null, the sentinels let the full join match those facets too
+    private static final String ACTUAL_FACETS = """
+            SELECT COALESCE(a.owner_id, f.owner_id) AS owner_id,
+                   COALESCE(a.registration_status, f.registration_status) AS registration_status,
+                   COALESCE(a.event_count, 0) AS event_count
+            FROM (SELECT owner_id, registration_status, count(*) AS event_count
+                  FROM events
+                  GROUP BY owner_id, registration_status) AS a
+            FULL JOIN event_facets AS f
+                ON COALESCE(a.owner_id, -1) = COALESCE(f.owner_id, -1)
+               AND COALESCE(a.registration_status, '') = COALESCE(f.registration_status, '')
+            WHERE COALESCE(a.event_count, 0) <> COALESCE(f.event_count, 0)
+            """;
+
+    // the row is locked before it is checked, so the outcome is decided on the version the update would see
+    private static final String UPDATE_PARTIALLY = """
+            WITH target AS (
+                SELECT id, owner_id, version, %s AS start_date_time, %s AS end_date_time
+                FROM events
+                WHERE id = :eventId
+                FOR UPDATE
+            ), updated AS (
+                UPDATE events AS e
+                SET %s, updated_date_time = :updatedDateTime, version = e.version + 1
+                FROM target AS t
+                WHERE e.id = t.id AND %s
+                RETURNING e.id, e.name, e.description, e.created_date_time, e.updated_date_time,
+                          e.team_updated_date_time, e.start_date_time, e.end_date_time, e.location, e.latitude,
+                          e.longitude, e.owner_id, e.participant_limit, e.registration_status, e.version
+            )
+            SELECT t.owner_id = :ownerId, t.version, t.start_date_time, t.end_date_time, u.*
+            FROM target AS t
+            LEFT JOIN updated AS u ON true
+            """;
+    // team members go with the event through the foreign key, one row is returned per member so their cached
+    // copies can be dropped. A row deleted concurrently is not deleted again
+    private static final String DELETE_IF_OWNED = """
+            WITH target AS (
+                SELECT id, owner_id FROM events WHERE id = :eventId
+            ), deleted AS (
+                DELETE FROM events AS e
+                USING target AS t
+                WHERE e.id = t.id AND t.owner_id = :ownerId
+                RETURNING e.id
+            )
+            SELECT t.owner_id = :ownerId, d.id IS NOT NULL, m.user_id
+            FROM target AS t
+            LEFT JOIN deleted AS d ON true
+            LEFT JOIN team_members AS m ON m.event_id = d.id
+            """;
+
+    // only the team marker is written, so the version and the fields a concurrent update writes are left alone
+    private static final String MARK_TEAM_UPDATED = """
+            UPDATE events
+            SET team_updated_date_time = :teamUpdatedDateTime, team_version = team_version + 1
+            WHERE id = :eventId
+            RETURNING id
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Slice<EventDto> findDtoSlice(Specification<Event> spec, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventDto> query = criteriaBuilder.createQuery(EventDto.class);
+        Root<Event> root = query.from(Event.class);
+        selectDto(query, root);
+        return fetchSlice(query, root, spec, pageable);
+    }
+
+    @Override
+    public Slice<EventDto> findDtoSliceByRelevance(Specification<Event> spec, String text, Pageable pageable) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventDto> query = criteriaBuilder.createQuery(EventDto.class);
+        Root<Event> root = query.from(Event.class);
+        selectDto(query, root);
+        if (pageable.getSort().isUnsorted()) {
+            query.orderBy(criteriaBuilder.desc(EventSpecification.textRank(root, criteriaBuilder, text)),
+                    criteriaBuilder.asc(root.get("id")));
+        }
+        return fetchSlice(query, root, spec, pageable);
+    }
+
+    @Override
+    public Stream<EventDto> streamDtos(Specification<Event> spec, Sort sort, int fetchSize) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        CriteriaQuery<EventDto> query = criteriaBuilder.createQuery(EventDto.class);
+        Root<Event> root = query.from(Event.class);
+        selectDto(query, root);
+        filterAndSort(query, root, spec, sort);
+
+        // a forward-only cursor; the driver only uses it inside a transaction and with a fetch size set
+        return entityManager.createQuery(query)
+                .setHint(AvailableHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(AvailableHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+
+    private void selectDto(CriteriaQuery<EventDto> query, Root<Event> root) {
+        query.select(entityManager.getCriteriaBuilder().construct(EventDto.class,
+                root.get("id"),
+                root.get("name"),
+                root.get("description"),
+                root.get("createdDateTime"),
+                root.get("startDateTime"),
+                root.get("endDateTime"),
+                root.get("location"),
+                root.get("latitude"),
+                root.get("longitude"),
+                root.get("ownerId"),
+                root.get("registrationStatus")));
+    }
+
+    private void filterAndSort(CriteriaQuery<?> query, Root<Event> root, Specification<Event> spec, Sort sort) {
+        CriteriaBuilder criteriaBuilder = entityManager.getCriteriaBuilder();
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, criteriaBuilder);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        if (sort.isSorted()) {
+            query.orderBy(QueryUtils.toOrders(sort, root, criteriaBuilder));
+        }
+    }
+
+    private <T> Slice<T> fetchSlice(CriteriaQuery<T> query, Root<Event> root, Specification<Event> spec,
+                                    Pageable pageable) {
+        filterAndSort(query, root, spec, pageable.getSort());
+
+        List<T> content = entityManager.createQuery(query)
+                .setFirstResult((int) pageable.getOffset())
+                .setMaxResults(pageable.getPageSize() + 1)
+                .getResultList();
+        boolean hasNext = content.size() > pageable.getPageSize();
+        return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+    }
+
+    @Override
+    public long estimateCount(EventSearchFilter filter) {
+        boolean hasText = filter.text() != null && !filter.text().isBlank();
+        boolean upcoming = Boolean.TRUE.equals(filter.upcoming());
+        boolean near = filter.latitude() != null && filter.longitude() != null && filter.radiusKm() != null;
+        if (filter.userId() == null && filter.registrationStatus() == null && !hasText
+                && filter.rangeStart() == null && filter.rangeEnd() == null && !upcoming && !near) {
+            Number reltuples = (Number) entityManager.createNativeQuery(
+                            "SELECT reltuples FROM pg_class WHERE oid = 'events'::regclass")
+                    .getSingleResult();
+            return reltuples.longValue() < 0 ? -1 : reltuples.longValue();
+        }
+
+        List<String> conditions = new ArrayList<>();
+        Map<String, Object> parameters = new HashMap<>();
+        if (filter.userId() != null) {
+            conditions.add("owner_id = :ownerId");
+            parameters.put("ownerId", filter.userId());
+        }
+        if (filter.registrationStatus() != null) {
+            conditions.add("registration_status = :registrationStatus");
+            parameters.put("registrationStatus", filter.registrationStatus().name());
+        }
+        if (hasText) {
+            conditions.add("search_vector @@ websearch_to_tsquery('simple', :text)");
+            parameters.put("text", filter.text());
+        }
+        if (filter.rangeStart() != null) {
+            conditions.add("end_date_time >= :rangeStart");
+            parameters.put("rangeStart", filter.rangeStart());
+        }
+        if (filter.rangeEnd() != null) {
+            conditions.add("start_date_time <= :rangeEnd");
+            parameters.put("rangeEnd", filter.rangeEnd());
+        }
+        if (upcoming) {
+            conditions.add("start_date_time > localtimestamp");
+        }
+        if (near) {
+            // the latitude band of the circle is close enough for an estimate
+            double latitudeDelta = EventSpecification.latitudeDelta(filter.radiusKm());
+            conditions.add("latitude BETWEEN :minLatitude AND :maxLatitude AND longitude IS NOT NULL");
+            parameters.put("minLatitude", filter.latitude() - latitudeDelta);
+            parameters.put("maxLatitude", filter.latitude() + latitudeDelta);
+        }
+        Query explain = entityManager.createNativeQuery(
+                "EXPLAIN SELECT 1 FROM events WHERE " + String.join(" AND ", conditions));
+        parameters.forEach(explain::setParameter);
+
+        Matcher planRows = PLAN_ROWS.matcher((String) explain.getResultList().getFirst());
+        return planRows.find() ? Long.parseLong(planRows.group(1)) : -1;
+    }
+
+    @Override
+    public List<EventFacetsDto.RegistrationStatusCount> countByRegistrationStatusFacet(Long ownerId,
+                                                                                      EventRegistrationStatus status) {
+        Map<String, Object> parameters = new HashMap<>();
+        Query query = entityManager.createNativeQuery("""
+                SELECT registration_status, sum(event_count)::bigint
+                FROM event_facets
+                WHERE %s
+                GROUP BY registration_status
+                HAVING sum(event_count) > 0
+                ORDER BY registration_status
+                """.formatted(facetConditions(ownerId, status, parameters)));
+        parameters.forEach(query::setParameter);
+
+        List<EventFacetsDto.RegistrationStatusCount> counts = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            counts.add(new EventFacetsDto.RegistrationStatusCount(
+                    columns[0] == null ? null : EventRegistrationStatus.valueOf((String) columns[0]),
+                    ((Number) columns[1]).longValue()));
+        }
+        return counts;
+    }
+
+    @Override
+    public List<EventFacetsDto.OwnerCount> countByOwnerFacet(Long ownerId, EventRegistrationStatus status,
+                                                             int limit) {
+        Map<String, Object> parameters = new HashMap<>();
+        Query query = entityManager.createNativeQuery("""
+                SELECT owner_id, sum(event_count)::bigint AS owner_count
+                FROM event_facets
+                WHERE %s
+                GROUP BY owner_id
+                HAVING sum(event_count) > 0
+                ORDER BY owner_count DESC, owner_id
+                """.formatted(facetConditions(ownerId, status, parameters)))
+                .setMaxResults(limit);
+        parameters.forEach(query::setParameter);
+
+        List<EventFacetsDto.OwnerCount> counts = new ArrayList<>();
+        for (Object row : query.getResultList()) {
+            Object[] columns = (Object[]) row;
+            counts.add(new EventFacetsDto.OwnerCount(
+                    columns[0] == null ? null : ((Number) columns[0]).longValue(),
+                    ((Number) columns[1]).longValue()));
+        }
+        return counts;
+    }
+
+    private String facetConditions(Long ownerId, EventRegistrationStatus status, Map<String, Object> parameters) {
+        List<String> conditions = new ArrayList<>();
+        conditions.add("event_count <> 0");
+        if (ownerId != null) {
+            conditions.add("owner_id = :ownerId");
+            parameters.put("ownerId", ownerId);
+        }
+        if (status != null) {
+            conditions.add("registration_status = :registrationStatus");
+            parameters.put("registrationStatus", status.name());
+        }
+        return String.join(" AND ", conditions);
+    }
+
+    @Override
+    public long countFacetMismatches() {
+        Number mismatches = (Number) entityManager.createNativeQuery(
+                        "SELECT count(*) FROM (" + ACTUAL_FACETS + ") AS mismatches")
+                .getSingleResult();
+        return mismatches.longValue();
+    }
+
+    @Override
+    public long repairFacets() {
+        // conflicts with the ROW EXCLUSIVE lock the triggers take, and waits for writers in flight to commit
+        updateFacets("LOCK TABLE event_facets IN SHARE ROW EXCLUSIVE MODE");
+        long repaired = updateFacets("""
+                INSERT INTO event_facets AS f (owner_id, registration_status, event_count)
+                """ + ACTUAL_FACETS + """
+                ON CONFLICT (COALESCE(owner_id, -1), COALESCE(registration_status, ''))
+                DO UPDATE SET event_count = EXCLUDED.event_count
+                """);
+        updateFacets("DELETE FROM event_facets WHERE event_count = 0");
+        return repaired;
+    }
+
+    private int updateFacets(String sql) {
+        // without a query space Hibernate would evict the whole second-level cache after a native statement
+        return entityManager.createNativeQuery(sql)
+                .unwrap(NativeQuery.class)
+                .addSynchronizedQuerySpace("event_facets")
+                .executeUpdate();
+    }
+
+    @Override
+    public EventUpdateResult updatePartially(Long eventId, Long ownerId, UpdatedEventDto updatedEventDto,
+                                             LocalDateTime updatedDateTime, Long expectedVersion) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("eventId", eventId);
+        parameters.put("ownerId", ownerId);
+        parameters.put("updatedDateTime", updatedDateTime);
+        List<String> assignments = new ArrayList<>();
+        setIfPresent(assignments, parameters, "name", updatedEventDto.name());
+        setIfPresent(assignments, parameters, "description", updatedEventDto.description());
+        setIfPresent(assignments, parameters, "start_date_time", updatedEventDto.startDateTime());
+        setIfPresent(assignments, parameters, "end_date_time", updatedEventDto.endDateTime());
+        setIfPresent(assignments, parameters, "location", updatedEventDto.location());
+        setIfPresent(assignments, parameters, "latitude", updatedEventDto.latitude());
+        setIfPresent(assignments, parameters, "longitude", updatedEventDto.longitude());
+        // a primitive in the request, so it can not be told apart from absent and is always set
+        setIfPresent(assignments, parameters, "participant_limit", updatedEventDto.participantLimit());
+        setIfPresent(assignments, parameters, "registration_status",
+                updatedEventDto.registrationStatus() == null ? null : updatedEventDto.registrationStatus().name());
+        List<String> conditions = new ArrayList<>();
+        conditions.add("t.owner_id = :ownerId");
+        conditions.add("t.end_date_time >= t.start_date_time");
+        if (expectedVersion != null) {
+            conditions.add("t.version = :expectedVersion");
+            parameters.put("expectedVersion", expectedVersion);
+        }
+
+        Query query = entityManager.createNativeQuery(UPDATE_PARTIALLY.formatted(
+                updatedEventDto.startDateTime() == null ? "start_date_time" : "CAST(:start_date_time AS timestamp)",
+                updatedEventDto.endDateTime() == null ? "end_date_time" : "CAST(:end_date_time AS timestamp)",
+                String.join(", ", assignments),
+                String.join(" AND ", conditions)));
+        parameters.forEach(query::setParameter);
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return new EventUpdateResult(EventWriteOutcome.NOT_FOUND, null, null, null, null);
+        }
+
+        Object[] columns = (Object[]) rows.getFirst();
+        Long version = ((Number) columns[1]).longValue();
+        LocalDateTime startDateTime = toLocalDateTime(columns[2]);
+        LocalDateTime endDateTime = toLocalDateTime(columns[3]);
+        if (columns[4] == null) {
+            EventWriteOutcome outcome;
+            if (!Boolean.TRUE.equals(columns[0])) {
+                outcome = EventWriteOutcome.NOT_OWNER;
+            } else if (expectedVersion != null && !expectedVersion.equals(version)) {
+                outcome = EventWriteOutcome.STALE_VERSION;
+            } else {
+                outcome = EventWriteOutcome.END_BEFORE_START;
+            }
+            return new EventUpdateResult(outcome, null, version, startDateTime, endDateTime);
+        }
+
+        forgetEvent(eventId);
+        return new EventUpdateResult(EventWriteOutcome.APPLIED, toEvent(columns, 4), version, startDateTime,
+                endDateTime);
+    }
+
+    private static void setIfPresent(List<String> assignments, Map<String, Object> parameters, String column,
+                                     Object value) {
+        if (value != null) {
+            assignments.add(column + " = :" + column);
+            parameters.put(column, value);
+        }
+    }
+
+    private static Event toEvent(Object[] columns, int offset) {
+        return Event.builder()
+                .id(((Number) columns[offset]).longValue())
+                .name((String) columns[offset + 1])
+                .description((String) columns[offset + 2])
+                .createdDateTime(toLocalDateTime(columns[offset + 3]))
+                .updatedDateTime(toLocalDateTime(columns[offset + 4]))
+                .teamUpdatedDateTime(toLocalDateTime(columns[offset + 5]))
+                .startDateTime(toLocalDateTime(columns[offset + 6]))
+                .endDateTime(toLocalDateTime(columns[offset + 7]))
+                .location((String) columns[offset + 8])
+                .latitude(columns[offset + 9] == null ? null : ((Number) columns[offset + 9]).doubleValue())
+                .longitude(columns[offset + 10] == null ? null : ((Number) columns[offset + 10]).doubleValue())
+                .ownerId(columns[offset + 11] == null ? null : ((Number) columns[offset + 11]).longValue())
+                .participantLimit(columns[offset + 12] == null ? 0 : ((Number) columns[offset + 12]).intValue())
+                .registrationStatus(columns[offset + 13] == null
+                        ? null : EventRegistrationStatus.valueOf((String) columns[offset + 13]))
+                .version(((Number) columns[offset + 14]).longValue())
+                .build();
+    }
+
+    private static LocalDateTime toLocalDateTime(Object column) {
+        return column == null ? null : ((Timestamp) column).toLocalDateTime();
+    }
+
+    @Override
+    public EventWriteOutcome deleteIfOwned(Long eventId, Long ownerId) {
+        List<?> rows = entityManager.createNativeQuery(DELETE_IF_OWNED)
+                .setParameter("eventId", eventId)
+                .setParameter("ownerId", ownerId)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return EventWriteOutcome.NOT_FOUND;
+        }
+
+        Object[] columns = (Object[]) rows.getFirst();
+        if (!Boolean.TRUE.equals(columns[0])) {
+            return EventWriteOutcome.NOT_OWNER;
+        }
+        if (!Boolean.TRUE.equals(columns[1])) {
+            return EventWriteOutcome.NOT_FOUND;
+        }
+        forgetEvent(eventId);
+        List<TeamMemberId> memberIds = new ArrayList<>();
+        for (Object row : rows) {
+            Object memberId = ((Object[]) row)[2];
+            if (memberId != null) {
+                memberIds.add(new TeamMemberId(eventId, ((Number) memberId).longValue()));
+            }
+        }
+        CacheEviction.afterCommit(entityManager, TeamMember.class, memberIds, TeamMember.TABLE_NAME);
+        return EventWriteOutcome.APPLIED;
+    }
+
+    @Override
+    public boolean markTeamUpdated(Long eventId, LocalDateTime teamUpdatedDateTime) {
+        List<?> rows = entityManager.createNativeQuery(MARK_TEAM_UPDATED)
+                .setParameter("eventId", eventId)
+                .setParameter("teamUpdatedDateTime", teamUpdatedDateTime)
+                .getResultList();
+        if (rows.isEmpty()) {
+            return false;
+        }
+        forgetEvent(eventId);
+        return true;
+    }
+
+    private void forgetEvent(Long eventId) {
+        // the statement bypassed the persistence context and the second-level cache, so neither may keep
+        // a copy loaded before it. Getting a reference does not load the event when it is not there
+        entityManager.detach(entityManager.getReference(Event.class, eventId));
+        CacheEviction.afterCommit(entityManager, Event.class, List.of(eventId));
+    }
+}
@@ -0,0 +1,83 @@
+package meetup.event.repository.event;
+
+import org.hibernate.boot.model.FunctionContributions;
+import org.hibernate.boot.model.FunctionContributor;
+import org.hibernate.query.ReturnableType;
+import org.hibernate.query.sqm.function.AbstractSqmSelfRenderingFunctionDescriptor;
+import org.hibernate.query.sqm.produce.function.StandardArgumentsValidators;
+import org.hibernate.query.sqm.produce.function.StandardFunctionArgumentTypeResolvers;
+import org.hibernate.query.sqm.produce.function.StandardFunctionReturnTypeResolvers;
+import org.hibernate.sql.ast.SqlAstTranslator;
+import org.hibernate.sql.ast.spi.SqlAppender;
+import org.hibernate.sql.ast.tree.SqlAstNode;
+import org.hibernate.sql.ast.tree.expression.ColumnReference;
+import org.hibernate.sql.ast.tree.expression.Expression;
+import org.hibernate.type.BasicType;
+import org.hibernate.type.BasicTypeRegistry;
+import org.hibernate.type.StandardBasicTypes;
+
+import java.util.List;
+
+/**
+ * Search functions for criteria queries over events.
+ * Full-text search works on {@code events.search_vector}; the query text is parsed like a web search:
+ * words, "quoted phrases", {@code or} and {@code -excluded}.
+ */
+public class EventSearchFunctionContributor implements FunctionContributor {
+    public static final String MATCHES = "event_search_matches";
+    public static final String RANK = "event_search_rank";
+    public static final String DISTANCE_KM = "event_distance_km";
+
+    static final double EARTH_RADIUS_KM = 6371.0088;
+
+    private static final String SEARCH_VECTOR_COLUMN = "search_vector";
+    private static final String TS_QUERY = "websearch_to_tsquery('simple', ";
+
+    @Override
+    public void contributeFunctions(FunctionContributions functionContributions) {
+        BasicTypeRegistry basicTypeRegistry = functionContributions.getTypeConfiguration().getBasicTypeRegistry();
+        functionContributions.getFunctionRegistry().register(MATCHES, new SearchVectorFunction(MATCHES,
+                "(", " @@ " + TS_QUERY, "))", basicTypeRegistry.resolve(StandardBasicTypes.BOOLEAN)));
+        functionContributions.getFunctionRegistry().register(RANK, new SearchVectorFunction(RANK,
+                "ts_rank_cd(", ", " + TS_QUERY, "))", basicTypeRegistry.resolve(StandardBasicTypes.DOUBLE)));
+        // haversine great-circle distance between (?1, ?2) and (?3, ?4) in degrees
+        functionContributions.getFunctionRegistry().registerPattern(DISTANCE_KM,
+                "(2 * " + EARTH_RADIUS_KM + " * asin(sqrt("
+                        + "power(sin(radians(?3 - ?1) / 2), 2)"
+                        + " + cos(radians(?1)) * cos(radians(?3)) * power(sin(radians(?4 - ?2) / 2), 2))))",
+                basicTypeRegistry.resolve(StandardBasicTypes.DOUBLE));
+    }
+
+    /**
+     * Takes the id of an event and the query text. The search vector is not mapped, so that its lexemes are
+     * neither loaded with events nor cached, and is read from the same table row as the id.
+     */
+    private static class SearchVectorFunction extends AbstractSqmSelfRenderingFunctionDescriptor {
+        private final String prefix;
+        private final String separator;
+        private final String suffix;
+
+        SearchVectorFunction(String name, String prefix, String separator, String suffix, BasicType<?> type) {
+            super(name, StandardArgumentsValidators.exactly(2), StandardFunctionReturnTypeResolvers.invariant(type),
+                    StandardFunctionArgumentTypeResolvers.NULL);
+            this.prefix = prefix;
+            this.separator = separator;
+            this.suffix = suffix;
+        }
+
+        @Override
+        public void render(SqlAppender sqlAppender, List<? extends SqlAstNode> arguments,
+                           ReturnableType<?> returnType, SqlAstTranslator<?> walker) {
+            ColumnReference id = ((Expression) arguments.get(0)).getColumnReference();
+            sqlAppender.appendSql(prefix);
+            if (id.getQualifier() != null) {
+                sqlAppender.appendSql(id.getQualifier());
+                sqlAppender.appendSql('.');
+            }
+            sqlAppender.appendSql(SEARCH_VECTOR_COLUMN);
+            sqlAppender.appendSql(separator);
+            arguments.get(1).accept(walker);
+            sqlAppender.appendSql(suffix);
+        }
+    }
+}
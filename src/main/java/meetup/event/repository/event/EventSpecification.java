@@ -1,10 +1,19 @@
 package meetup.event.repository.event;
 
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
 import lombok.experimental.UtilityClass;
+import meetup.event.dto.event.EventCursor;
 import meetup.event.model.event.Event;
 import meetup.event.model.event.EventRegistrationStatus;
+import org.hibernate.query.criteria.HibernateCriteriaBuilder;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDateTime;
+
 @UtilityClass
 public class EventSpecification {
 
@@ -23,4 +32,130 @@ public class EventSpecification {
 
         return (root, query, criteriaBuilder) -> criteriaBuilder.equal(root.get("registrationStatus"), registrationStatus);
     }
-}
\ No newline at end of file
+
+    /**
+     * Events that have not ended by the moment, so together with {@link #startsAtOrBefore}
+     * all events overlapping a time window are found.
+     */
+    public static Specification<Event> endsAtOrAfter(LocalDateTime moment) {
+        if (moment == null) {
+            return null;
+        }
+
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThanOrEqualTo(root.get("endDateTime"), moment);
+    }
+
+    public static Specification<Event> startsAtOrBefore(LocalDateTime moment) {
+        if (moment == null) {
+            return null;
+        }
+
+        return (root, query, criteriaBuilder) -> criteriaBuilder.lessThanOrEqualTo(root.get("startDateTime"), moment);
+    }
+
+    public static Specification<Event> startsAfter(LocalDateTime moment) {
+        if (moment == null) {
+            return null;
+        }
+
+        return (root, query, criteriaBuilder) -> criteriaBuilder.greaterThan(root.get("startDateTime"), moment);
+    }
+
+    /**
+     * Events within the radius from the point. The bounding box of the circle is matched first,
+     * which the coordinates index can answer, and only the events inside it have their distance computed.
+     */
+    public static Specification<Event> withinRadius(Double latitude, Double longitude, Double radiusKm) {
+        if (latitude == null || longitude == null || radiusKm == null) {
+            return null;
+        }
+
+        double latitudeDelta = latitudeDelta(radiusKm);
+        double minLatitude = latitude - latitudeDelta;
+        double maxLatitude = latitude + latitudeDelta;
+        // the circle spans all longitudes when it reaches a pole
+        double longitudeDelta = minLatitude <= -90 || maxLatitude >= 90
+                ? 180
+                : Math.toDegrees(Math.asin(Math.sin(radiusKm / EventSearchFunctionContributor.EARTH_RADIUS_KM)
+                / Math.cos(Math.toRadians(latitude))));
+        double minLongitude = longitude - longitudeDelta;
+        double maxLongitude = longitude + longitudeDelta;
+
+        return (root, query, criteriaBuilder) -> {
+            Path<Double> latitudePath = root.get("latitude");
+            Path<Double> longitudePath = root.get("longitude");
+            Predicate longitudeInBox;
+            if (longitudeDelta >= 180) {
+                longitudeInBox = criteriaBuilder.isNotNull(longitudePath);
+            } else if (minLongitude < -180) {
+                // the box crosses the antimeridian
+                longitudeInBox = criteriaBuilder.or(
+                        criteriaBuilder.greaterThanOrEqualTo(longitudePath, minLongitude + 360),
+                        criteriaBuilder.lessThanOrEqualTo(longitudePath, maxLongitude));
+            } else if (maxLongitude > 180) {
+                longitudeInBox = criteriaBuilder.or(
+                        criteriaBuilder.greaterThanOrEqualTo(longitudePath, minLongitude),
+                        criteriaBuilder.lessThanOrEqualTo(longitudePath, maxLongitude - 360));
+            } else {
+                longitudeInBox = criteriaBuilder.between(longitudePath, minLongitude, maxLongitude);
+            }
+            HibernateCriteriaBuilder hibernateCriteriaBuilder = (HibernateCriteriaBuilder) criteriaBuilder;
+            Expression<Double> distance = criteriaBuilder.function(EventSearchFunctionContributor.DISTANCE_KM,
+                    Double.class, latitudePath, longitudePath,
+                    hibernateCriteriaBuilder.value(latitude), hibernateCriteriaBuilder.value(longitude));
+            return criteriaBuilder.and(
+                    criteriaBuilder.between(latitudePath, Math.max(minLatitude, -90), Math.min(maxLatitude, 90)),
+                    longitudeInBox,
+                    criteriaBuilder.lessThanOrEqualTo(distance, radiusKm));
+        };
+    }
+
+    /**
+     * Events whose name or description match the text.
+     */
+    public static Specification<Event> textMatches(String text) {
+        if (text == null || text.isBlank()) {
+            return null;
+        }
+
+        return (root, query, criteriaBuilder) -> criteriaBuilder.isTrue(criteriaBuilder.function(
+                EventSearchFunctionContributor.MATCHES, Boolean.class,
+                root.get("id"), textParameter(criteriaBuilder, text)));
+    }
+
+    /**
+     * How well the name and description of the event match the text, higher is better.
+     */
+    static Expression<Double> textRank(Root<Event> root, CriteriaBuilder criteriaBuilder, String text) {
+        return criteriaBuilder.function(EventSearchFunctionContributor.RANK, Double.class, root.get("id"),
+                textParameter(criteriaBuilder, text));
+    }
+
+    private static Expression<String> textParameter(CriteriaBuilder criteriaBuilder, String text) {
+        // bound rather than inlined, so every search runs the same statement
+        return ((HibernateCriteriaBuilder) criteriaBuilder).value(text);
+    }
+
+    /**
+     * Events that come after the cursor in (start date and time, id) order.
+     * The redundant lower bound on the start lets the database seek in the start index.
+     */
+    public static Specification<Event> after(EventCursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+
+        return (root, query, criteriaBuilder) -> criteriaBuilder.and(
+                criteriaBuilder.greaterThanOrEqualTo(root.get("startDateTime"), cursor.startDateTime()),
+                criteriaBuilder.or(
+                        criteriaBuilder.greaterThan(root.get("startDateTime"), cursor.startDateTime()),
+                        criteriaBuilder.greaterThan(root.get("id"), cursor.id())));
+    }
+
+    /**
+     * Degrees of latitude covered by the distance along a meridian.
+     */
+    static double latitudeDelta(double distanceKm) {
+        return Math.toDegrees(distanceKm / EventSearchFunctionContributor.EARTH_RADIUS_KM);
+    }
+}
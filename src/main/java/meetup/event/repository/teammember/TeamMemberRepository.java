@@ -1,16 +1,30 @@
 package meetup.event.repository.teammember;
 
+import jakarta.persistence.QueryHint;
 import meetup.event.model.teammember.TeamMember;
 import meetup.event.model.teammember.TeamMemberId;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TeamMemberRepository extends JpaRepository<TeamMember, TeamMemberId> {
+public interface TeamMemberRepository extends JpaRepository<TeamMember, TeamMemberId>, TeamMemberRepositoryCustom {
+    String TEAM_MEMBER_BY_EVENT_AND_USER_CACHE_REGION = "team-member-by-event-and-user";
+    String TEAM_MEMBERS_BY_EVENT_CACHE_REGION = "team-members-by-event";
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = TEAM_MEMBER_BY_EVENT_AND_USER_CACHE_REGION)
+    })
     Optional<TeamMember> findByIdEventIdAndIdUserId(Long eventId, Long userId);
 
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = TEAM_MEMBERS_BY_EVENT_CACHE_REGION)
+    })
     List<TeamMember> findAllByIdEventId(Long eventId);
 }
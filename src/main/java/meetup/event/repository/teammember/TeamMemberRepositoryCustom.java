@@ -0,0 +1,37 @@
+package meetup.event.repository.teammember;
+
+import meetup.event.dto.teammember.TeamPermission;
+import meetup.event.model.teammember.TeamMemberRole;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public interface TeamMemberRepositoryCustom {
+
+    /**
+     * Adds the users to the team of the event or changes their roles, in one statement.
+     * {@code userIds} must be distinct and {@code roles} aligned with them.
+     * Returns, for every row written, whether it was inserted ({@code true}) or updated ({@code false});
+     * users who already have the role are absent. Cached team members written are evicted.
+     */
+    Map<Long, Boolean> upsertRoles(Long eventId, List<Long> userIds, List<TeamMemberRole> roles);
+
+    /**
+     * Sets the role of the member in one statement, without loading it. Returns {@code false} when the user is
+     * not in the team. The cached member is evicted.
+     */
+    boolean updateRole(Long eventId, Long userId, TeamMemberRole role);
+
+    /**
+     * Removes the member from the team in one statement, without loading it. Returns {@code false} when the user
+     * is not in the team. The cached member is evicted.
+     */
+    boolean deleteMember(Long eventId, Long userId);
+
+    /**
+     * Reads whether {@code userId} owns the event, and the roles of {@code userId} and {@code memberId} in
+     * its team, in one query. {@code memberId} may be {@code null}. Empty when the event does not exist.
+     */
+    Optional<TeamPermission> findPermission(Long eventId, Long userId, Long memberId);
+}
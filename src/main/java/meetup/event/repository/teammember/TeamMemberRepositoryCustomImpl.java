@@ -0,0 +1,128 @@
+package meetup.event.repository.teammember;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import meetup.event.dto.teammember.TeamPermission;
+import meetup.event.model.teammember.TeamMember;
+import meetup.event.model.teammember.TeamMemberId;
+import meetup.event.model.teammember.TeamMemberRole;
+import meetup.event.repository.CacheEviction;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+public class TeamMemberRepositoryCustomImpl implements TeamMemberRepositoryCustom {
+    // rows are locked in user id order, so concurrent rosters of one event do not deadlock.
+    // xmax is 0 only for a row version created by the insert, an update on conflict sets it
+    private static final String UPSERT_ROLES = """
+            INSERT INTO team_members AS t (event_id, user_id, role)
+            SELECT :eventId, roster.user_id, roster.role
+            FROM unnest(CAST(:userIds AS bigint[]), CAST(:roles AS varchar[])) AS roster(user_id, role)
+            ORDER BY roster.user_id
+            ON CONFLICT (event_id, user_id) DO UPDATE SET role = EXCLUDED.role
+            WHERE t.role <> EXCLUDED.role
+            RETURNING t.user_id, t.xmax = 0
+            """;
+    // RETURNING tells whether the member was there, without the cleanup Hibernate does after a bulk statement
+    private static final String UPDATE_ROLE = """
+            UPDATE team_members
+            SET role = :role
+            WHERE event_id = :eventId AND user_id = :userId
+            RETURNING user_id
+            """;
+    private static final String DELETE_MEMBER = """
+            DELETE FROM team_members
+            WHERE event_id = :eventId AND user_id = :userId
+            RETURNING user_id
+            """;
+    // both team lookups are primary key lookups, a missing member is a null role
+    private static final String FIND_PERMISSION = """
+            SELECT e.owner_id = :userId, requester.role, %s
+            FROM events AS e
+            LEFT JOIN team_members AS requester ON requester.event_id = e.id AND requester.user_id = :userId
+            %s
+            WHERE e.id = :eventId
+            """;
+    private static final String MEMBER_JOIN =
+            "LEFT JOIN team_members AS member ON member.event_id = e.id AND member.user_id = :memberId";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Map<Long, Boolean> upsertRoles(Long eventId, List<Long> userIds, List<TeamMemberRole> roles) {
+        List<?> rows = entityManager.createNativeQuery(UPSERT_ROLES)
+                .setParameter("eventId", eventId)
+                .setParameter("userIds", userIds.toArray(Long[]::new))
+                .setParameter("roles", roles.stream().map(TeamMemberRole::name).toArray(String[]::new))
+                .getResultList();
+
+        Map<Long, Boolean> written = new HashMap<>();
+        for (Object row : rows) {
+            Object[] columns = (Object[]) row;
+            written.put(((Number) columns[0]).longValue(), (Boolean) columns[1]);
+        }
+        CacheEviction.afterCommit(entityManager, TeamMember.class,
+                written.keySet().stream().map(userId -> new TeamMemberId(eventId, userId)).toList(),
+                TeamMember.TABLE_NAME);
+        return written;
+    }
+
+    @Override
+    public boolean updateRole(Long eventId, Long userId, TeamMemberRole role) {
+        List<?> rows = entityManager.createNativeQuery(UPDATE_ROLE)
+                .setParameter("eventId", eventId)
+                .setParameter("userId", userId)
+                .setParameter("role", role.name())
+                .getResultList();
+        return forgetMemberIfWritten(eventId, userId, rows);
+    }
+
+    @Override
+    public boolean deleteMember(Long eventId, Long userId) {
+        List<?> rows = entityManager.createNativeQuery(DELETE_MEMBER)
+                .setParameter("eventId", eventId)
+                .setParameter("userId", userId)
+                .getResultList();
+        return forgetMemberIfWritten(eventId, userId, rows);
+    }
+
+    private boolean forgetMemberIfWritten(Long eventId, Long userId, List<?> rows) {
+        if (rows.isEmpty()) {
+            return false;
+        }
+        // the statement bypassed the persistence context and the second-level cache, so neither may keep
+        // a copy loaded before it
+        TeamMemberId memberId = new TeamMemberId(eventId, userId);
+        entityManager.detach(entityManager.getReference(TeamMember.class, memberId));
+        CacheEviction.afterCommit(entityManager, TeamMember.class, List.of(memberId), TeamMember.TABLE_NAME);
+        return true;
+    }
+
+    @Override
+    public Optional<TeamPermission> findPermission(Long eventId, Long userId, Long memberId) {
+        Query query = entityManager.createNativeQuery(memberId == null
+                ? FIND_PERMISSION.formatted("CAST(NULL AS varchar)", "")
+                : FIND_PERMISSION.formatted("member.role", MEMBER_JOIN))
+                .setParameter("eventId", eventId)
+                .setParameter("userId", userId);
+        if (memberId != null) {
+            query.setParameter("memberId", memberId);
+        }
+
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] columns = (Object[]) rows.getFirst();
+        return Optional.of(new TeamPermission(Boolean.TRUE.equals(columns[0]), toRole(columns[1]),
+                toRole(columns[2])));
+    }
+
+    private static TeamMemberRole toRole(Object column) {
+        return column == null ? null : TeamMemberRole.valueOf((String) column);
+    }
+}
@@ -0,0 +1,41 @@
+package meetup.event.service.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import meetup.event.repository.event.EventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Compares the facet counts with the events table and repairs the ones that drifted,
+ * e.g. after rows were changed with the triggers disabled.
+ */
+@Slf4j
+@Component
+public class EventFacetConsistencyCheck {
+    private final EventRepository eventRepository;
+    private final Counter repairedFacets;
+
+    public EventFacetConsistencyCheck(EventRepository eventRepository, MeterRegistry meterRegistry) {
+        this.eventRepository = eventRepository;
+        this.repairedFacets = meterRegistry.counter("events.facets.repaired");
+    }
+
+    /**
+     * Returns the number of facets repaired. Writers are only blocked when a mismatch has been found.
+     */
+    @Transactional
+    public long check() {
+        long mismatches = eventRepository.countFacetMismatches();
+        if (mismatches == 0) {
+            log.debug("Facets of events are consistent");
+            return 0;
+        }
+
+        long repaired = eventRepository.repairFacets();
+        repairedFacets.increment(repaired);
+        log.warn("{} facets of events differed from the events table and have been repaired", repaired);
+        return repaired;
+    }
+}
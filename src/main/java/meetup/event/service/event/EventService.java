@@ -1,19 +1,60 @@
 package meetup.event.service.event;
 
+import meetup.event.dto.event.EventBulkResultDto;
+import meetup.event.dto.event.EventCursor;
+import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
 import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventTotalMode;
+import meetup.event.dto.event.EventVersion;
+import meetup.event.dto.event.NewEventDto;
 import meetup.event.dto.event.UpdatedEventDto;
 import meetup.event.model.event.Event;
+import meetup.event.model.event.EventRegistrationStatus;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.function.Consumer;
+
 
 public interface EventService {
     Event createEvent(Long userId, Event event);
 
-    Event updateEvent(Long userId, Long eventId, UpdatedEventDto updatedEventDto);
+    /**
+     * Creates the valid events in one transaction and reports the invalid ones per item.
+     * The owner is checked once for all events.
+     */
+    List<EventBulkResultDto> createEvents(Long userId, List<NewEventDto> newEventDtos);
+
+    /**
+     * Updates the event if its version is still {@code expectedVersion}, or unconditionally when it is
+     * {@code null}. An unconditional update that loses a race with another update is reapplied to the new
+     * version a bounded number of times.
+     */
+    Event updateEvent(Long userId, Long eventId, UpdatedEventDto updatedEventDto, Long expectedVersion);
 
     Event getEventByEventId(Long eventId, Long userId);
 
-    List<Event> getEvents(Integer from, Integer size, EventSearchFilter filter);
+    EventVersion getEventVersion(Long eventId);
+
+    void markTeamUpdated(Long eventId);
+
+    Slice<EventDto> getEvents(Integer from, Integer size, EventSearchFilter filter);
+
+    Slice<EventDto> getEventsAfter(EventCursor cursor, Integer size, EventSearchFilter filter);
+
+    long countEvents(EventSearchFilter filter, EventTotalMode mode);
+
+    EventFacetsDto getFacets(Long userId, EventRegistrationStatus registrationStatus, int ownersLimit);
+
+    /**
+     * Checks what the search filter's annotations cannot, such as a range that ends before it starts.
+     *
+     * @throws java.time.DateTimeException when the range ends before it starts
+     */
+    void checkSearchFilter(EventSearchFilter filter);
+
+    void exportEvents(EventSearchFilter filter, Consumer<EventDto> consumer);
 
     void deleteEventById(Long userId, Long eventId);
 }
\ No newline at end of file
@@ -1,19 +1,36 @@
 package meetup.event.service.event;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import meetup.event.repository.event.EventSpecification;
 import meetup.event.client.UserClient;
+import meetup.event.client.UserClientErrorDecoder;
+import meetup.event.client.UserIdProjection;
+import meetup.event.dto.event.EventBulkResultDto;
+import meetup.event.dto.event.EventCursor;
+import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
 import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventTotalMode;
+import meetup.event.dto.event.EventUpdateResult;
+import meetup.event.dto.event.EventVersion;
+import meetup.event.dto.event.NewEventDto;
 import meetup.event.dto.user.UserDto;
 import meetup.event.dto.event.UpdatedEventDto;
 import meetup.event.mapper.EventMapper;
 import meetup.event.model.event.Event;
+import meetup.event.model.event.EventRegistrationStatus;
 import meetup.event.repository.event.EventRepository;
 import meetup.exception.NotAuthorizedException;
 import meetup.exception.NotFoundException;
+import meetup.exception.PreconditionFailedException;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -23,6 +40,11 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -32,15 +54,31 @@ public class EventServiceImpl implements EventService {
     private final EventRepository eventRepository;
     private final EventMapper eventMapper;
     private final UserClient userClient;
+    private final UserIdProjection userIdProjection;
+    private final ExecutorService userLookupExecutor;
+    private final Validator validator;
+
+    /**
+     * When set, the owner is looked up in user-service while the event is validated and inserted.
+     * The insert is rolled back if the owner turns out to be missing. The event is flushed as soon as it is saved,
+     * otherwise the pooled id generator leaves the INSERT until the commit, after the owner lookup.
+     */
+    @Value("${app.event.create.overlap-user-check:false}")
+    private boolean overlapUserCheck;
+
+    @Value("${app.event.export.fetch-size:1000}")
+    private int exportFetchSize;
 
     @Override
     @Transactional
     public Event createEvent(Long userId, Event event) {
-        checkUserExists(userId, userId);
-        checkStartAndEndDateTime(event.getStartDateTime(), event.getEndDateTime());
-        event.setOwnerId(userId);
-
-        Event eventSaved = eventRepository.save(event);
+        Event eventSaved;
+        if (overlapUserCheck) {
+            eventSaved = saveEventWhileCheckingOwner(userId, event);
+        } else {
+            checkUserExists(userId, userId);
+            eventSaved = saveEvent(userId, event);
+        }
 
         log.info("User with id=" + userId + " added a new event with id=" + event.getId());
         return eventSaved;
@@ -48,26 +86,64 @@ public class EventServiceImpl implements EventService {
 
     @Override
     @Transactional
-    public Event updateEvent(Long userId, Long eventId, UpdatedEventDto updatedEventDto) {
-        Event event = getEventById(eventId);
+    public List<EventBulkResultDto> createEvents(Long userId, List<NewEventDto> newEventDtos) {
+        checkUserExists(userId, userId);
 
-        checkIfTheUserIsTheOwner(userId, event);
-        eventMapper.updateEvent(updatedEventDto, event);
-        checkStartAndEndDateTime(event.getStartDateTime(), event.getEndDateTime());
+        List<EventBulkResultDto> results = new ArrayList<>(newEventDtos.size());
+        List<Integer> validIndexes = new ArrayList<>();
+        List<Event> validEvents = new ArrayList<>();
+        for (int i = 0; i < newEventDtos.size(); i++) {
+            List<String> errors = validateNewEvent(newEventDtos.get(i));
+            if (errors.isEmpty()) {
+                Event event = eventMapper.toEventFromNewEventDto(newEventDtos.get(i));
+                event.setOwnerId(userId);
+                validIndexes.add(i);
+                validEvents.add(event);
+                // filled in once the event is saved
+                results.add(null);
+            } else {
+                results.add(EventBulkResultDto.rejected(i, errors));
+            }
+        }
 
-        Event updatedEvent = eventRepository.save(event);
+        // ids come from the pooled sequence, so the inserts are sent in JDBC batches on flush
+        List<Event> savedEvents = eventRepository.saveAll(validEvents);
+        for (int i = 0; i < savedEvents.size(); i++) {
+            int index = validIndexes.get(i);
+            results.set(index, EventBulkResultDto.created(index, eventMapper.toEventDto(savedEvents.get(i))));
+        }
 
-        log.info("User with id=" + userId + " updated event with id=" + eventId);
+        log.info("User with id=" + userId + " added " + savedEvents.size() + " of " + newEventDtos.size()
+                + " events");
+        return results;
+    }
 
-        return updatedEvent;
+    @Override
+    @Transactional
+    public Event updateEvent(Long userId, Long eventId, UpdatedEventDto updatedEventDto, Long expectedVersion) {
+        EventUpdateResult result = eventRepository.updatePartially(eventId, userId, updatedEventDto,
+                LocalDateTime.now(), expectedVersion);
+
+        switch (result.outcome()) {
+            case NOT_FOUND -> throw eventNotFound(eventId);
+            case NOT_OWNER -> throw notTheOwner(userId, eventId);
+            case STALE_VERSION -> throw new PreconditionFailedException("Event with id=" + eventId
+                    + " has version " + result.version() + ", not " + expectedVersion);
+            case END_BEFORE_START -> checkStartAndEndDateTime(result.startDateTime(), result.endDateTime());
+            case APPLIED -> log.info("User with id=" + userId + " updated event with id=" + eventId);
+        }
+
+        return result.event();
     }
 
     @Override
+    @Transactional(readOnly = true)
     public Event getEventByEventId(Long eventId, Long userId) {
         Event event = getEventById(eventId);
 
         if (!Objects.equals(event.getOwnerId(), userId)) {
-            event.setCreatedDateTime(null);
+            // a copy, so the managed entity is never changed by masking
+            event = event.toBuilder().createdDateTime(null).build();
         }
 
         log.info("Event with id=" + eventId + " found");
@@ -76,11 +152,31 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
-    public List<Event> getEvents(Integer from, Integer size, EventSearchFilter filter) {
-        final Pageable pageable = PageRequest.of(from, size);
+    @Transactional(readOnly = true)
+    public EventVersion getEventVersion(Long eventId) {
+        return eventRepository.findVersionById(eventId).orElseThrow(() -> eventNotFound(eventId));
+    }
+
+    @Override
+    @Transactional
+    public void markTeamUpdated(Long eventId) {
+        if (!eventRepository.markTeamUpdated(eventId, LocalDateTime.now())) {
+            throw eventNotFound(eventId);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Slice<EventDto> getEvents(Integer from, Integer size, EventSearchFilter filter) {
+        // time windows are listed in start order, which the start index returns without sorting
+        final Pageable pageable = filter.hasTimeWindow() && !hasText(filter)
+                ? PageRequest.of(from, size, Sort.by("startDateTime", "id"))
+                : PageRequest.of(from, size);
         final List<Specification<Event>> specifications = searchFilterToSpecificationList(filter);
         final Specification<Event> resultSpec = specifications.stream().reduce(Specification::and).orElse(null);
-        final List<Event> events = eventRepository.findAll(resultSpec, pageable).getContent();
+        final Slice<EventDto> events = hasText(filter)
+                ? eventRepository.findDtoSliceByRelevance(resultSpec, filter.text(), pageable)
+                : eventRepository.findDtoSlice(resultSpec, pageable);
 
         log.info("A list of events has been generated");
 
@@ -88,25 +184,150 @@ public class EventServiceImpl implements EventService {
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public Slice<EventDto> getEventsAfter(EventCursor cursor, Integer size, EventSearchFilter filter) {
+        final List<Specification<Event>> specifications = new ArrayList<>(searchFilterToSpecificationList(filter));
+        final Specification<Event> afterCursor = EventSpecification.after(cursor);
+        if (afterCursor != null) {
+            specifications.add(afterCursor);
+        }
+        final Specification<Event> resultSpec = specifications.stream().reduce(Specification::and).orElse(null);
+        final Slice<EventDto> events = eventRepository.findDtoSlice(resultSpec,
+                PageRequest.of(0, size, Sort.by("startDateTime", "id")));
+
+        log.info("A list of events after cursor {} has been generated", cursor);
+
+        return events;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countEvents(EventSearchFilter filter, EventTotalMode mode) {
+        if (mode == EventTotalMode.ESTIMATE) {
+            long estimate = eventRepository.estimateCount(filter);
+            if (estimate >= 0) {
+                return estimate;
+            }
+            log.debug("Events table has no planner statistics yet, counting events exactly");
+        }
+        final Specification<Event> resultSpec = searchFilterToSpecificationList(filter).stream()
+                .reduce(Specification::and).orElse(null);
+        return eventRepository.count(resultSpec);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public EventFacetsDto getFacets(Long userId, EventRegistrationStatus registrationStatus, int ownersLimit) {
+        List<EventFacetsDto.RegistrationStatusCount> registrationStatuses =
+                eventRepository.countByRegistrationStatusFacet(userId, registrationStatus);
+        List<EventFacetsDto.OwnerCount> owners =
+                eventRepository.countByOwnerFacet(userId, registrationStatus, ownersLimit);
+        long total = registrationStatuses.stream().mapToLong(EventFacetsDto.RegistrationStatusCount::count).sum();
+
+        log.info("Facets of events have been counted");
+        return new EventFacetsDto(total, registrationStatuses, owners);
+    }
+
+    @Override
+    public void checkSearchFilter(EventSearchFilter filter) {
+        if (filter.rangeStart() != null && filter.rangeEnd() != null
+                && filter.rangeEnd().isBefore(filter.rangeStart())) {
+            throw new DateTimeException("Range end: " + filter.rangeEnd()
+                    + " is before range start: " + filter.rangeStart());
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportEvents(EventSearchFilter filter, Consumer<EventDto> consumer) {
+        final Specification<Event> resultSpec = searchFilterToSpecificationList(filter).stream()
+                .reduce(Specification::and).orElse(null);
+        long exported = 0;
+        try (Stream<EventDto> events = eventRepository.streamDtos(resultSpec, Sort.by("id"), exportFetchSize)) {
+            for (EventDto event : (Iterable<EventDto>) events::iterator) {
+                consumer.accept(event);
+                exported++;
+            }
+        }
+
+        log.info("{} events have been exported", exported);
+    }
+
+    @Override
+    @Transactional
     public void deleteEventById(Long userId, Long eventId) {
-        Event event = getEventById(eventId);
+        switch (eventRepository.deleteIfOwned(eventId, userId)) {
+            case NOT_FOUND -> throw eventNotFound(eventId);
+            case NOT_OWNER -> throw notTheOwner(userId, eventId);
+            case APPLIED -> log.info("Event with id=" + eventId + "deleted");
+        }
+    }
+
+    private Event saveEvent(Long userId, Event event) {
+        checkStartAndEndDateTime(event.getStartDateTime(), event.getEndDateTime());
+        event.setOwnerId(userId);
+
+        return eventRepository.save(event);
+    }
 
-        checkIfTheUserIsTheOwner(userId, event);
-        eventRepository.deleteById(eventId);
+    private List<String> validateNewEvent(NewEventDto newEventDto) {
+        if (newEventDto == null) {
+            return List.of("Event cannot be null");
+        }
+        List<String> errors = new ArrayList<>(validator.validate(newEventDto).stream()
+                .map(ConstraintViolation::getMessage)
+                .sorted()
+                .toList());
+        if (errors.isEmpty()) {
+            try {
+                checkStartAndEndDateTime(newEventDto.startDateTime(), newEventDto.endDateTime());
+            } catch (DateTimeException e) {
+                errors.add(e.getMessage());
+            }
+        }
+        return errors;
+    }
 
-        log.info("Event with id=" + eventId + "deleted");
+    private Event saveEventWhileCheckingOwner(Long userId, Event event) {
+        CompletableFuture<Void> ownerChecked = CompletableFuture.runAsync(
+                () -> checkUserExists(userId, userId), userLookupExecutor);
+        Event eventSaved;
+        try {
+            checkStartAndEndDateTime(event.getStartDateTime(), event.getEndDateTime());
+            event.setOwnerId(userId);
+            eventSaved = eventRepository.saveAndFlush(event);
+        } catch (RuntimeException e) {
+            // a missing owner is reported before validation errors
+            awaitOwnerChecked(ownerChecked);
+            throw e;
+        }
+        // throwing here rolls the insert back, the transaction commits only after the owner is confirmed
+        awaitOwnerChecked(ownerChecked);
+        return eventSaved;
+    }
+
+    private void awaitOwnerChecked(CompletableFuture<Void> ownerChecked) {
+        try {
+            ownerChecked.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
     private Event getEventById(Long eventId) {
 
-        return eventRepository.findById(eventId).orElseThrow(()
-                -> new NotFoundException("Event with id=" + eventId + " was not found"));
+        return eventRepository.findById(eventId).orElseThrow(() -> eventNotFound(eventId));
     }
 
-    private void checkIfTheUserIsTheOwner(Long userId, Event event) {
-        if (!Objects.equals(event.getOwnerId(), userId)) {
-            throw new NotAuthorizedException("User id=" + userId + " is not the owner of the event id=" + event.getId());
-        }
+    private static NotFoundException eventNotFound(Long eventId) {
+        return new NotFoundException("Event with id=" + eventId + " was not found");
+    }
+
+    private static NotAuthorizedException notTheOwner(Long userId, Long eventId) {
+        return new NotAuthorizedException("User id=" + userId + " is not the owner of the event id=" + eventId);
     }
 
     private void checkStartAndEndDateTime(LocalDateTime start, LocalDateTime end) {
@@ -116,14 +337,33 @@ public class EventServiceImpl implements EventService {
     }
 
     private void checkUserExists(Long userId, Long ownerId) {
+        if (userIdProjection.isFresh()) {
+            if (!userIdProjection.contains(ownerId)) {
+                throw new NotFoundException(UserClientErrorDecoder.USER_NOT_FOUND_MESSAGE);
+            }
+            return;
+        }
         UserDto userDto = userClient.getUserById(userId, ownerId);
     }
 
     private List<Specification<Event>> searchFilterToSpecificationList(EventSearchFilter searchFilter) {
+        checkSearchFilter(searchFilter);
         List<Specification<Event>> resultList = new ArrayList<>();
         resultList.add(EventSpecification.ownerIdEquals(searchFilter.userId()));
         resultList.add(EventSpecification.registrationStatusEquals(searchFilter.registrationStatus()));
+        resultList.add(EventSpecification.textMatches(searchFilter.text()));
+        resultList.add(EventSpecification.endsAtOrAfter(searchFilter.rangeStart()));
+        resultList.add(EventSpecification.startsAtOrBefore(searchFilter.rangeEnd()));
+        resultList.add(EventSpecification.withinRadius(searchFilter.latitude(), searchFilter.longitude(),
+                searchFilter.radiusKm()));
+        if (Boolean.TRUE.equals(searchFilter.upcoming())) {
+            resultList.add(EventSpecification.startsAfter(LocalDateTime.now()));
+        }
         return resultList.stream().filter(Objects::nonNull).toList();
     }
 
-}
\ No newline at end of file
+    private boolean hasText(EventSearchFilter filter) {
+        return filter.text() != null && !filter.text().isBlank();
+    }
+
+}
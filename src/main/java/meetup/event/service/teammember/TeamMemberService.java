@@ -2,6 +2,8 @@ package meetup.event.service.teammember;
 
 import meetup.event.dto.teammember.NewTeamMemberDto;
 import meetup.event.dto.teammember.TeamMemberDto;
+import meetup.event.dto.teammember.TeamRosterMemberDto;
+import meetup.event.dto.teammember.TeamRosterResultDto;
 import meetup.event.dto.teammember.UpdateTeamMemberDto;
 
 import java.util.List;
@@ -9,6 +11,13 @@ import java.util.List;
 public interface TeamMemberService {
     TeamMemberDto addTeamMember(Long userId, NewTeamMemberDto newTeamMemberDto);
 
+    /**
+     * Adds many users to the team of an event or changes their roles. The requester is authorized once,
+     * the users are looked up in batches and all members are written in one statement.
+     * Results follow the order of {@code members}.
+     */
+    List<TeamRosterResultDto> upsertRoster(Long userId, Long eventId, List<TeamRosterMemberDto> members);
+
     List<TeamMemberDto> getTeamsByEventId(Long userId, Long eventId);
 
     TeamMemberDto updateTeamMemberInEvent(Long userId, Long eventId, Long memberId, UpdateTeamMemberDto updateTeamMemberDto);
@@ -3,9 +3,15 @@ package meetup.event.service.teammember;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import meetup.event.client.UserClient;
+import meetup.event.client.UserClientErrorDecoder;
+import meetup.event.client.UserIdProjection;
 import meetup.event.dto.user.UserDto;
 import meetup.event.dto.teammember.NewTeamMemberDto;
 import meetup.event.dto.teammember.TeamMemberDto;
+import meetup.event.dto.teammember.TeamPermission;
+import meetup.event.dto.teammember.TeamRosterMemberDto;
+import meetup.event.dto.teammember.TeamRosterOutcome;
+import meetup.event.dto.teammember.TeamRosterResultDto;
 import meetup.event.dto.teammember.UpdateTeamMemberDto;
 import meetup.event.mapper.TeamMemberMapper;
 import meetup.event.model.event.Event;
@@ -17,35 +23,116 @@ import meetup.event.service.event.EventService;
 import meetup.exception.NotAuthorizedException;
 import meetup.exception.NotFoundException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class TeamMemberServiceImpl implements TeamMemberService {
+    private static final int USER_LOOKUP_BATCH_SIZE = 200;
+
     private final TeamMemberRepository teamMemberRepository;
     private final EventService eventService;
     private final TeamMemberMapper teamMemberMapper;
     private final UserClient userClient;
+    private final UserIdProjection userIdProjection;
+    private final ExecutorService userLookupExecutor;
+    private final TeamPermissionResolver teamPermissionResolver;
 
     @Override
+    @Transactional
     public TeamMemberDto addTeamMember(Long userId, NewTeamMemberDto newTeamMemberDto) {
-        checkUserExists(userId, userId);
-        checkUserExists(userId, newTeamMemberDto.userId());
-        checkTeamMemberManagerOrOwnerRoleInEvent(newTeamMemberDto.eventId(), userId);
+        List<Long> userIds = Stream.of(userId, newTeamMemberDto.userId()).distinct().toList();
+        CompletableFuture<Void> usersChecked = CompletableFuture.runAsync(
+                () -> checkUsersExist(userId, userIds), userLookupExecutor);
+        try {
+            checkTeamMemberManagerOrOwnerRoleInEvent(newTeamMemberDto.eventId(), userId, null);
+        } catch (RuntimeException e) {
+            // a missing user is reported before event and role errors
+            awaitUsersChecked(usersChecked);
+            throw e;
+        }
+        awaitUsersChecked(usersChecked);
         TeamMemberId teamMemberId = new TeamMemberId(newTeamMemberDto.eventId(), newTeamMemberDto.userId());
         TeamMember teamMember = TeamMember.builder()
                 .id(teamMemberId)
                 .role(newTeamMemberDto.role())
                 .build();
         teamMember = teamMemberRepository.save(teamMember);
+        eventService.markTeamUpdated(newTeamMemberDto.eventId());
         log.info("Member id = '{}' was added to team event id = '{}' by user id = '{}'",
                 teamMember.getId().getUserId(), teamMember.getId().getEventId(), userId);
         return teamMemberMapper.toTeamMemberDto(teamMember);
     }
 
     @Override
+    @Transactional
+    public List<TeamRosterResultDto> upsertRoster(Long userId, Long eventId, List<TeamRosterMemberDto> members) {
+        Map<Long, TeamMemberRole> roles = new LinkedHashMap<>();
+        for (TeamRosterMemberDto member : members) {
+            roles.putIfAbsent(member.userId(), member.role());
+        }
+        List<Long> userIds = Stream.concat(Stream.of(userId), roles.keySet().stream()).distinct().toList();
+        CompletableFuture<Set<Long>> usersFound = CompletableFuture.supplyAsync(
+                () -> findExistingUserIds(userId, userIds), userLookupExecutor);
+        try {
+            checkTeamMemberManagerOrOwnerRoleInEvent(eventId, userId, null);
+        } catch (RuntimeException e) {
+            // a missing requester is reported before event and role errors
+            awaitUsersFound(userId, usersFound);
+            throw e;
+        }
+        Set<Long> foundIds = awaitUsersFound(userId, usersFound);
+
+        List<Long> upsertIds = new ArrayList<>();
+        List<TeamMemberRole> upsertRoles = new ArrayList<>();
+        roles.forEach((memberId, role) -> {
+            if (foundIds.contains(memberId)) {
+                upsertIds.add(memberId);
+                upsertRoles.add(role);
+            }
+        });
+        Map<Long, Boolean> written = upsertIds.isEmpty()
+                ? Map.of()
+                : teamMemberRepository.upsertRoles(eventId, upsertIds, upsertRoles);
+        if (!written.isEmpty()) {
+            eventService.markTeamUpdated(eventId);
+        }
+
+        Set<Long> reported = new HashSet<>();
+        List<TeamRosterResultDto> results = new ArrayList<>(members.size());
+        for (TeamRosterMemberDto member : members) {
+            TeamRosterOutcome outcome;
+            if (!reported.add(member.userId())) {
+                outcome = TeamRosterOutcome.DUPLICATE;
+            } else if (!foundIds.contains(member.userId())) {
+                outcome = TeamRosterOutcome.USER_NOT_FOUND;
+            } else if (!written.containsKey(member.userId())) {
+                outcome = TeamRosterOutcome.UNCHANGED;
+            } else {
+                outcome = written.get(member.userId()) ? TeamRosterOutcome.ADDED : TeamRosterOutcome.UPDATED;
+            }
+            results.add(new TeamRosterResultDto(member.userId(), member.role(), outcome));
+        }
+        log.info("Roster of '{}' members was applied to team event id = '{}' by user id = '{}', '{}' written",
+                members.size(), eventId, userId, written.size());
+        return results;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
     public List<TeamMemberDto> getTeamsByEventId(Long userId, Long eventId) {
         Event event = eventService.getEventByEventId(eventId, userId);
         List<TeamMember> teamMembers = teamMemberRepository.findAllByIdEventId(eventId);
@@ -54,41 +141,111 @@ public class TeamMemberServiceImpl implements TeamMemberService {
     }
 
     @Override
+    @Transactional
     public TeamMemberDto updateTeamMemberInEvent(Long userId, Long eventId, Long memberId, UpdateTeamMemberDto updateTeamMemberDto) {
-        checkTeamMemberManagerOrOwnerRoleInEvent(eventId, userId);
-        TeamMember member = getTeamMember(eventId, memberId);
-        teamMemberMapper.updateTeamMember(updateTeamMemberDto, member);
-        TeamMember upadatedTeamMember = teamMemberRepository.save(member);
+        TeamPermission permission = checkTeamMemberManagerOrOwnerRoleInEvent(eventId, userId, memberId);
+        checkMemberInTeam(eventId, memberId, permission);
+        if (!teamMemberRepository.updateRole(eventId, memberId, updateTeamMemberDto.role())) {
+            throw teamMemberNotFound(eventId, memberId);
+        }
+        eventService.markTeamUpdated(eventId);
         log.info("Member with id = '{}' was updated in team event id = '{}' by user id = '{}'", memberId, eventId, userId);
-        return teamMemberMapper.toTeamMemberDto(upadatedTeamMember);
+        return teamMemberMapper.toTeamMemberDto(new TeamMember(new TeamMemberId(eventId, memberId), updateTeamMemberDto.role()));
     }
 
     @Override
+    @Transactional
     public void deleteTeamMemberFromEvent(Long userId, Long eventId, Long memberId) {
-        checkTeamMemberManagerOrOwnerRoleInEvent(eventId, userId);
-        TeamMember member = getTeamMember(eventId, memberId);
-        teamMemberRepository.delete(member);
+        TeamPermission permission = checkTeamMemberManagerOrOwnerRoleInEvent(eventId, userId, memberId);
+        checkMemberInTeam(eventId, memberId, permission);
+        if (!teamMemberRepository.deleteMember(eventId, memberId)) {
+            throw teamMemberNotFound(eventId, memberId);
+        }
+        eventService.markTeamUpdated(eventId);
         log.info("Member with id = '{}' was deleted from team event id = '{}'", memberId, eventId);
     }
 
-    private TeamMember getTeamMember(Long eventId, Long memberId) {
-        return teamMemberRepository.findByIdEventIdAndIdUserId(eventId, memberId).orElseThrow(
-                () -> new NotFoundException(String.format("Team member id = %d is not in team event id = %d", memberId, eventId))
-        );
+    private static void checkMemberInTeam(Long eventId, Long memberId, TeamPermission permission) {
+        // the statements find out too, a member removed after the permission was read writes no row
+        if (permission.memberRole() == null) {
+            throw teamMemberNotFound(eventId, memberId);
+        }
     }
 
-    private void checkTeamMemberManagerOrOwnerRoleInEvent(Long eventId, Long memberId) {
-        Event event = eventService.getEventByEventId(eventId, memberId);
-        if (!event.getOwnerId().equals(memberId)) {
-            TeamMember user = getTeamMember(eventId, memberId);
-            if (!user.getRole().equals(TeamMemberRole.MANAGER)) {
-                throw new NotAuthorizedException(String.format("User id = %d in event id = %d not Manager", memberId, eventId));
+    private TeamPermission checkTeamMemberManagerOrOwnerRoleInEvent(Long eventId, Long userId, Long memberId) {
+        TeamPermission permission = teamPermissionResolver.resolve(eventId, userId, memberId);
+        if (!permission.owner()) {
+            if (permission.role() == null) {
+                throw teamMemberNotFound(eventId, userId);
+            }
+            if (!permission.canManageTeam()) {
+                throw new NotAuthorizedException(String.format("User id = %d in event id = %d not Manager", userId, eventId));
             }
         }
+        return permission;
     }
 
-    private void checkUserExists(Long userId, Long memberId) {
-        UserDto userDto = userClient.getUserById(userId, memberId);
+    private static NotFoundException teamMemberNotFound(Long eventId, Long memberId) {
+        return new NotFoundException(String.format("Team member id = %d is not in team event id = %d", memberId, eventId));
+    }
+
+    private void checkUsersExist(Long userId, List<Long> ids) {
+        if (userIdProjection.isFresh()) {
+            if (!ids.stream().allMatch(userIdProjection::contains)) {
+                throw new NotFoundException(UserClientErrorDecoder.USER_NOT_FOUND_MESSAGE);
+            }
+            return;
+        }
+        Set<Long> foundIds = userClient.getUsersByIds(userId, ids).stream()
+                .map(UserDto::id)
+                .collect(Collectors.toSet());
+        if (!foundIds.containsAll(ids)) {
+            throw new NotFoundException(UserClientErrorDecoder.USER_NOT_FOUND_MESSAGE);
+        }
+    }
+
+    private Set<Long> findExistingUserIds(Long userId, List<Long> ids) {
+        if (userIdProjection.isFresh()) {
+            return ids.stream().filter(userIdProjection::contains).collect(Collectors.toSet());
+        }
+        // batches keep the query string of the lookup short and are looked up in parallel
+        List<CompletableFuture<List<UserDto>>> batches = new ArrayList<>();
+        for (int from = 0; from < ids.size(); from += USER_LOOKUP_BATCH_SIZE) {
+            List<Long> batch = ids.subList(from, Math.min(from + USER_LOOKUP_BATCH_SIZE, ids.size()));
+            batches.add(CompletableFuture.supplyAsync(() -> userClient.getUsersByIds(userId, batch),
+                    userLookupExecutor));
+        }
+        return batches.stream()
+                .flatMap(batch -> batch.join().stream())
+                .map(UserDto::id)
+                .collect(Collectors.toSet());
+    }
+
+    private Set<Long> awaitUsersFound(Long userId, CompletableFuture<Set<Long>> usersFound) {
+        Set<Long> foundIds;
+        try {
+            foundIds = usersFound.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        if (!foundIds.contains(userId)) {
+            throw new NotFoundException(UserClientErrorDecoder.USER_NOT_FOUND_MESSAGE);
+        }
+        return foundIds;
+    }
+
+    private void awaitUsersChecked(CompletableFuture<Void> usersChecked) {
+        try {
+            usersChecked.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
 }
\ No newline at end of file
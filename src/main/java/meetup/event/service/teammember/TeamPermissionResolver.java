@@ -0,0 +1,27 @@
+package meetup.event.service.teammember;
+
+import lombok.RequiredArgsConstructor;
+import meetup.event.dto.teammember.TeamPermission;
+import meetup.event.repository.teammember.TeamMemberRepository;
+import meetup.exception.NotFoundException;
+import org.springframework.stereotype.Component;
+
+/**
+ * Answers whether a user may manage the team of an event, and whether a member is in it, with one query.
+ */
+@Component
+@RequiredArgsConstructor
+public class TeamPermissionResolver {
+    private final TeamMemberRepository teamMemberRepository;
+
+    /**
+     * Resolves the permission of {@code userId} in the event, and the role of {@code memberId} unless it is
+     * {@code null}.
+     *
+     * @throws NotFoundException when the event does not exist
+     */
+    public TeamPermission resolve(Long eventId, Long userId, Long memberId) {
+        return teamMemberRepository.findPermission(eventId, userId, memberId)
+                .orElseThrow(() -> new NotFoundException("Event with id=" + eventId + " was not found"));
+    }
+}
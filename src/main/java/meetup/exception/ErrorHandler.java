@@ -1,12 +1,16 @@
 package meetup.exception;
 
+import org.springframework.context.MessageSourceResolvable;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
 import java.time.DateTimeException;
+import java.util.stream.Collectors;
 
 @RestControllerAdvice
 public class ErrorHandler {
@@ -37,6 +41,24 @@ public class ErrorHandler {
         );
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.CONFLICT)
+    public ErrorResponse handleOptimisticLockingFailureException(final OptimisticLockingFailureException e) {
+        return new ErrorResponse(
+                "Event was updated concurrently, retry the update",
+                HttpStatus.CONFLICT.value()
+        );
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    public ErrorResponse handlePreconditionFailedException(final PreconditionFailedException e) {
+        return new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.PRECONDITION_FAILED.value()
+        );
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     public ErrorResponse handleMethodArgumentNotValidException(MethodArgumentNotValidException e) {
@@ -46,6 +68,54 @@ public class ErrorHandler {
         );
     }
 
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleHandlerMethodValidationException(final HandlerMethodValidationException e) {
+        // raised for constraints on the parameters themselves, such as the size of a list body
+        return new ErrorResponse(
+                e.getAllErrors().stream()
+                        .map(MessageSourceResolvable::getDefaultMessage)
+                        .collect(Collectors.joining(", ")),
+                HttpStatus.BAD_REQUEST.value()
+        );
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleInvalidCursorException(final InvalidCursorException e) {
+        return new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.BAD_REQUEST.value()
+        );
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    public ErrorResponse handleUserServiceUnavailableException(final UserServiceUnavailableException e) {
+        return new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        );
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.BAD_GATEWAY)
+    public ErrorResponse handleUserServiceRejectedException(final UserServiceRejectedException e) {
+        return new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.BAD_GATEWAY.value()
+        );
+    }
+
+    @ExceptionHandler
+    @ResponseStatus(HttpStatus.TOO_MANY_REQUESTS)
+    public ErrorResponse handleTooManyRequestsException(final TooManyRequestsException e) {
+        return new ErrorResponse(
+                e.getMessage(),
+                HttpStatus.TOO_MANY_REQUESTS.value()
+        );
+    }
+
     @ExceptionHandler
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     public ErrorResponse handleOtherException(Exception e) {
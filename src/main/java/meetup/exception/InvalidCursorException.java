@@ -0,0 +1,8 @@
+package meetup.exception;
+
+public class InvalidCursorException extends RuntimeException {
+
+    public InvalidCursorException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
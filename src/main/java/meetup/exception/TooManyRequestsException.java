@@ -0,0 +1,8 @@
+package meetup.exception;
+
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(final String message) {
+        super(message);
+    }
+}
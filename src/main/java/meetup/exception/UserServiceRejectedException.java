@@ -0,0 +1,8 @@
+package meetup.exception;
+
+public class UserServiceRejectedException extends RuntimeException {
+
+    public UserServiceRejectedException(final String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,12 @@
+package meetup.exception;
+
+public class UserServiceUnavailableException extends RuntimeException {
+
+    public UserServiceUnavailableException(final String message) {
+        super(message);
+    }
+
+    public UserServiceUnavailableException(final String message, final Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,19 @@
+-- keyset listing of all events ordered by start, then id
+CREATE INDEX IF NOT EXISTS idx_events_start_date_time_id
+    ON events (start_date_time, id);
+
+-- events of one owner, in the same order as the keyset listing
+CREATE INDEX IF NOT EXISTS idx_events_owner_id_start_date_time_id
+    ON events (owner_id, start_date_time, id);
+
+-- open events are the ones that are listed by registration status most of the time
+CREATE INDEX IF NOT EXISTS idx_events_open_start_date_time_id
+    ON events (start_date_time, id)
+    WHERE registration_status = 'OPEN';
+
+CREATE INDEX IF NOT EXISTS idx_events_registration_status
+    ON events (registration_status);
+
+-- the primary key (event_id, user_id) does not help lookups by user alone
+CREATE INDEX IF NOT EXISTS idx_team_members_user_id
+    ON team_members (user_id);
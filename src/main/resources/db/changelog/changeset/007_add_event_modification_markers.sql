@@ -0,0 +1,14 @@
+-- markers answered by conditional GET requests without reading the event or its team
+ALTER TABLE events
+ADD COLUMN IF NOT EXISTS updated_date_time timestamp,
+ADD COLUMN IF NOT EXISTS team_updated_date_time timestamp;
+
+UPDATE events
+SET updated_date_time = COALESCE(created_date_time, now()),
+    team_updated_date_time = COALESCE(created_date_time, now());
+
+ALTER TABLE events
+ALTER COLUMN updated_date_time SET DEFAULT now(),
+ALTER COLUMN updated_date_time SET NOT NULL,
+ALTER COLUMN team_updated_date_time SET DEFAULT now(),
+ALTER COLUMN team_updated_date_time SET NOT NULL;
@@ -0,0 +1,10 @@
+-- the simple configuration does not stem, so names and descriptions in any language are matched as written
+ALTER TABLE events
+ADD COLUMN IF NOT EXISTS search_vector tsvector
+    GENERATED ALWAYS AS (
+        setweight(to_tsvector('simple', coalesce(name, '')), 'A') ||
+        setweight(to_tsvector('simple', coalesce(description, '')), 'B')
+    ) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_events_search_vector
+    ON events USING GIN (search_vector);
@@ -0,0 +1,4 @@
+-- time windows bound the end of events; their start is bounded through idx_events_start_date_time_id.
+-- Rows are not inserted in event time order, so a BRIN index would not narrow the scan
+CREATE INDEX IF NOT EXISTS idx_events_end_date_time
+    ON events (end_date_time);
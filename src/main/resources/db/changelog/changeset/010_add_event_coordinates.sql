@@ -0,0 +1,7 @@
+ALTER TABLE events
+ADD COLUMN IF NOT EXISTS latitude double precision CHECK (latitude BETWEEN -90 AND 90),
+ADD COLUMN IF NOT EXISTS longitude double precision CHECK (longitude BETWEEN -180 AND 180);
+
+-- bounding box prefilter of the radius search: a range on latitude, the longitude range is checked in the index
+CREATE INDEX IF NOT EXISTS idx_events_latitude_longitude
+    ON events (latitude, longitude);
@@ -0,0 +1,70 @@
+-- number of events per owner and registration status, kept up to date by triggers on events
+CREATE TABLE IF NOT EXISTS event_facets (
+    owner_id BIGINT,
+    registration_status varchar(10),
+    event_count BIGINT NOT NULL
+);
+
+-- events without an owner or a status get a facet too. NULLS NOT DISTINCT would need PostgreSQL 15,
+-- so the key maps NULL to a value neither column holds
+CREATE UNIQUE INDEX IF NOT EXISTS uq_event_facets
+    ON event_facets (COALESCE(owner_id, -1), COALESCE(registration_status, ''));
+
+INSERT INTO event_facets (owner_id, registration_status, event_count)
+SELECT owner_id, registration_status, count(*)
+FROM events
+GROUP BY owner_id, registration_status;
+
+-- statement-level, so a multi-row insert or update changes each facet once.
+-- Facets are upserted in key order, so concurrent transactions lock them in the same order
+CREATE OR REPLACE FUNCTION events_maintain_facets() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO event_facets AS f (owner_id, registration_status, event_count)
+        SELECT owner_id, registration_status, count(*)
+        FROM new_events
+        GROUP BY owner_id, registration_status
+        ORDER BY owner_id, registration_status
+        ON CONFLICT (COALESCE(owner_id, -1), COALESCE(registration_status, ''))
+        DO UPDATE SET event_count = f.event_count + EXCLUDED.event_count;
+    ELSIF TG_OP = 'DELETE' THEN
+        INSERT INTO event_facets AS f (owner_id, registration_status, event_count)
+        SELECT owner_id, registration_status, -count(*)
+        FROM old_events
+        GROUP BY owner_id, registration_status
+        ORDER BY owner_id, registration_status
+        ON CONFLICT (COALESCE(owner_id, -1), COALESCE(registration_status, ''))
+        DO UPDATE SET event_count = f.event_count + EXCLUDED.event_count;
+    ELSE
+        INSERT INTO event_facets AS f (owner_id, registration_status, event_count)
+        SELECT owner_id, registration_status, sum(delta)
+        FROM (SELECT owner_id, registration_status, 1 AS delta FROM new_events
+              UNION ALL
+              SELECT owner_id, registration_status, -1 AS delta FROM old_events) AS changes
+        GROUP BY owner_id, registration_status
+        HAVING sum(delta) <> 0
+        ORDER BY owner_id, registration_status
+        ON CONFLICT (COALESCE(owner_id, -1), COALESCE(registration_status, ''))
+        DO UPDATE SET event_count = f.event_count + EXCLUDED.event_count;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_events_facets_insert ON events;
+CREATE TRIGGER trg_events_facets_insert
+    AFTER INSERT ON events
+    REFERENCING NEW TABLE AS new_events
+    FOR EACH STATEMENT EXECUTE FUNCTION events_maintain_facets();
+
+DROP TRIGGER IF EXISTS trg_events_facets_update ON events;
+CREATE TRIGGER trg_events_facets_update
+    AFTER UPDATE ON events
+    REFERENCING OLD TABLE AS old_events NEW TABLE AS new_events
+    FOR EACH STATEMENT EXECUTE FUNCTION events_maintain_facets();
+
+DROP TRIGGER IF EXISTS trg_events_facets_delete ON events;
+CREATE TRIGGER trg_events_facets_delete
+    AFTER DELETE ON events
+    REFERENCING OLD TABLE AS old_events
+    FOR EACH STATEMENT EXECUTE FUNCTION events_maintain_facets();
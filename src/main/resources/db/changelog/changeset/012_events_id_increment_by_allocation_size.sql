@@ -0,0 +1,4 @@
+-- Hibernate reserves 50 ids per nextval (pooled optimizer), so inserts can be batched.
+-- Rows inserted with the column default now skip ahead 50 ids each
+ALTER TABLE events
+ALTER COLUMN id SET INCREMENT BY 50;
@@ -0,0 +1,3 @@
+-- optimistic locking: incremented by every update of the event itself, team changes leave it alone
+ALTER TABLE events
+ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
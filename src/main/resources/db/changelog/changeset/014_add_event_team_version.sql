@@ -0,0 +1,3 @@
+-- incremented by every change of the team, so responses about the team can be tagged with it
+ALTER TABLE events
+ADD COLUMN IF NOT EXISTS team_version BIGINT NOT NULL DEFAULT 0;
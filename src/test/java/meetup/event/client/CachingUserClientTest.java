@@ -0,0 +1,296 @@
+package meetup.event.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserDto;
+import meetup.exception.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CachingUserClientTest {
+    @Mock
+    private UserClient userClient;
+
+    private SimpleMeterRegistry meterRegistry;
+
+    private CachingUserClient cachingUserClient;
+
+    private final UserDto userDto = UserDto.builder()
+            .id(2L)
+            .name("John")
+            .email("john@example.com")
+            .build();
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cachingUserClient = createClient(true);
+    }
+
+    @Test
+    void getUserByIdShouldCallUserServiceOnceForRepeatedLookups() {
+        when(userClient.getUserById(1L, 2L)).thenReturn(userDto);
+
+        UserDto first = cachingUserClient.getUserById(1L, 2L);
+        UserDto second = cachingUserClient.getUserById(3L, 2L);
+
+        assertEquals(userDto, first);
+        assertEquals(userDto, second);
+        verify(userClient, times(1)).getUserById(1L, 2L);
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "users").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void getUserByIdShouldCacheNotFoundResult() {
+        when(userClient.getUserById(1L, 1L)).thenReturn(UserDto.builder().id(1L).build());
+        when(userClient.getUserById(1L, 2L)).thenThrow(new NotFoundException("User was not found"));
+        cachingUserClient.getUserById(1L, 1L);
+
+        assertThrows(NotFoundException.class, () -> cachingUserClient.getUserById(1L, 2L));
+        NotFoundException ex = assertThrows(NotFoundException.class, () -> cachingUserClient.getUserById(1L, 2L));
+
+        assertEquals("User was not found", ex.getMessage());
+        verify(userClient, times(1)).getUserById(1L, 2L);
+    }
+
+    @Test
+    void getUserByIdShouldCacheNotFoundResultOfRequesterLookingUpItself() {
+        when(userClient.getUserById(2L, 2L)).thenThrow(new NotFoundException("User was not found"));
+
+        assertThrows(NotFoundException.class, () -> cachingUserClient.getUserById(2L, 2L));
+        assertThrows(NotFoundException.class, () -> cachingUserClient.getUserById(1L, 2L));
+
+        verify(userClient, times(1)).getUserById(2L, 2L);
+        verify(userClient, never()).getUserById(1L, 2L);
+    }
+
+    @Test
+    void getUserByIdShouldNotCacheNotFoundResultOfUnknownRequester() {
+        // the 404 may be about the requester rather than the user
+        when(userClient.getUserById(1L, 2L)).thenThrow(new NotFoundException("User was not found"));
+        when(userClient.getUserById(3L, 2L)).thenReturn(userDto);
+
+        assertThrows(NotFoundException.class, () -> cachingUserClient.getUserById(1L, 2L));
+
+        assertEquals(userDto, cachingUserClient.getUserById(3L, 2L));
+    }
+
+    @Test
+    void getUserByIdShouldNotCacheWhenDisabled() {
+        cachingUserClient = createClient(false);
+        when(userClient.getUserById(1L, 2L)).thenReturn(userDto);
+
+        cachingUserClient.getUserById(1L, 2L);
+        cachingUserClient.getUserById(1L, 2L);
+
+        verify(userClient, times(2)).getUserById(1L, 2L);
+    }
+
+    @Test
+    void getUsersByIdsShouldLoadOnlyUncachedUsersInOneBatch() {
+        UserDto otherUser = UserDto.builder().id(3L).build();
+        when(userClient.getUserById(1L, 2L)).thenReturn(userDto);
+        when(userClient.getUsersByIds(1L, List.of(3L, 4L))).thenReturn(List.of(otherUser));
+        cachingUserClient.getUserById(1L, 2L);
+
+        List<UserDto> users = cachingUserClient.getUsersByIds(1L, List.of(2L, 3L, 4L));
+        List<UserDto> usersAgain = cachingUserClient.getUsersByIds(1L, List.of(2L, 3L, 4L));
+
+        assertEquals(List.of(userDto, otherUser), users);
+        assertEquals(users, usersAgain);
+        verify(userClient, times(1)).getUsersByIds(1L, List.of(3L, 4L));
+        verify(userClient, never()).getUserById(1L, 4L);
+    }
+
+    @Test
+    void getUsersByIdsShouldFallBackToLookupsByIdWhenBatchEndpointIsMissing() {
+        when(userClient.getUsersByIds(1L, List.of(2L, 4L))).thenThrow(new NotFoundException("User was not found"));
+        when(userClient.getUserById(1L, 2L)).thenReturn(userDto);
+        when(userClient.getUserById(1L, 4L)).thenThrow(new NotFoundException("User was not found"));
+
+        List<UserDto> users = cachingUserClient.getUsersByIds(1L, List.of(2L, 4L));
+        cachingUserClient.getUsersByIds(1L, List.of(5L, 6L));
+
+        assertEquals(List.of(userDto), users);
+        verify(userClient, times(1)).getUsersByIds(1L, List.of(2L, 4L));
+        verify(userClient, never()).getUsersByIds(1L, List.of(5L, 6L));
+        verify(userClient, times(1)).getUserById(1L, 5L);
+    }
+
+    @Test
+    void getUsersByIdsShouldKeepBatchLookupWhenNoUserIsFoundByIdEither() {
+        when(userClient.getUsersByIds(1L, List.of(2L, 4L))).thenThrow(new NotFoundException("User was not found"));
+        when(userClient.getUserById(1L, 2L)).thenThrow(new NotFoundException("User was not found"));
+        when(userClient.getUserById(1L, 4L)).thenThrow(new NotFoundException("User was not found"));
+        when(userClient.getUsersByIds(1L, List.of(5L, 6L))).thenReturn(List.of());
+
+        List<UserDto> users = cachingUserClient.getUsersByIds(1L, List.of(2L, 4L));
+        cachingUserClient.getUsersByIds(1L, List.of(5L, 6L));
+
+        assertEquals(List.of(), users);
+        verify(userClient, times(1)).getUsersByIds(1L, List.of(5L, 6L));
+        verify(userClient, never()).getUserById(1L, 5L);
+    }
+
+    @Test
+    void getUsersByIdsShouldProbeBatchEndpointAgainAfterRetryInterval() {
+        Clock clock = mock(Clock.class);
+        Instant now = Instant.parse("2024-12-26T18:00:00Z");
+        when(clock.instant()).thenReturn(now, now, now.plus(Duration.ofMinutes(11)));
+        cachingUserClient = createClient(true, clock);
+        when(userClient.getUsersByIds(1L, List.of(2L, 4L))).thenThrow(new NotFoundException("User was not found"));
+        when(userClient.getUserById(1L, 2L)).thenReturn(userDto);
+        when(userClient.getUserById(1L, 4L)).thenThrow(new NotFoundException("User was not found"));
+        when(userClient.getUsersByIds(1L, List.of(5L, 6L))).thenReturn(List.of());
+
+        cachingUserClient.getUsersByIds(1L, List.of(2L, 4L));
+        cachingUserClient.getUsersByIds(1L, List.of(5L, 6L));
+
+        verify(userClient, times(1)).getUsersByIds(1L, List.of(5L, 6L));
+        verify(userClient, never()).getUserById(1L, 5L);
+    }
+
+    @Test
+    void getUserByIdShouldShareOneCallBetweenConcurrentIdenticalLookups() throws Exception {
+        cachingUserClient = createClient(false);
+        int callers = 20;
+        CountDownLatch start = new CountDownLatch(1);
+        when(userClient.getUserById(1L, 2L)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            return userDto;
+        });
+
+        List<Future<UserDto>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < callers; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return cachingUserClient.getUserById(1L, 2L);
+                }));
+            }
+            start.countDown();
+            for (Future<UserDto> result : results) {
+                assertEquals(userDto, result.get());
+            }
+        }
+
+        verify(userClient, times(1)).getUserById(1L, 2L);
+    }
+
+    @Test
+    void getUserByIdShouldShareExceptionBetweenConcurrentIdenticalLookups() throws Exception {
+        cachingUserClient = createClient(false);
+        CountDownLatch start = new CountDownLatch(1);
+        when(userClient.getUserById(1L, 2L)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            throw new NotFoundException("User was not found");
+        });
+
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return assertThrows(NotFoundException.class, () -> cachingUserClient.getUserById(1L, 2L));
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        verify(userClient, times(1)).getUserById(1L, 2L);
+    }
+
+    @Test
+    void getUserByIdShouldReleaseConcurrentIdenticalLookupsWhenCallFailsWithError() throws Exception {
+        cachingUserClient = createClient(false);
+        CountDownLatch start = new CountDownLatch(1);
+        when(userClient.getUserById(1L, 2L)).thenAnswer(invocation -> {
+            Thread.sleep(200);
+            throw new StackOverflowError();
+        });
+
+        List<Future<?>> results = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < 10; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return assertThrows(StackOverflowError.class, () -> cachingUserClient.getUserById(1L, 2L));
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        verify(userClient, times(1)).getUserById(1L, 2L);
+    }
+
+    @Test
+    void getUserByIdShouldNotShareCallsBetweenDifferentRequesters() throws Exception {
+        cachingUserClient = createClient(false);
+        CountDownLatch start = new CountDownLatch(1);
+        when(userClient.getUserById(anyLong(), eq(2L)))
+                .thenAnswer(invocation -> {
+                    Thread.sleep(200);
+                    return userDto;
+                });
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<UserDto> first = executor.submit(() -> {
+                start.await();
+                return cachingUserClient.getUserById(1L, 2L);
+            });
+            Future<UserDto> second = executor.submit(() -> {
+                start.await();
+                return cachingUserClient.getUserById(3L, 2L);
+            });
+            start.countDown();
+            first.get();
+            second.get();
+        }
+
+        verify(userClient, times(1)).getUserById(1L, 2L);
+        verify(userClient, times(1)).getUserById(3L, 2L);
+    }
+
+    private CachingUserClient createClient(boolean enabled) {
+        return createClient(enabled, Clock.systemUTC());
+    }
+
+    private CachingUserClient createClient(boolean enabled, Clock clock) {
+        UserClientProperties properties = new UserClientProperties(
+                new UserClientProperties.Cache(enabled, Duration.ofMinutes(5), Duration.ofSeconds(30), 100,
+                        Duration.ofMinutes(10)), null, null, null);
+        return new CachingUserClient(userClient, properties, meterRegistry, clock);
+    }
+}
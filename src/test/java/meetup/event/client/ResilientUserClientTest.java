@@ -0,0 +1,159 @@
+package meetup.event.client;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import feign.Feign;
+import feign.Request;
+import feign.Retryer;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserDto;
+import meetup.exception.NotFoundException;
+import meetup.exception.UserServiceRejectedException;
+import meetup.exception.UserServiceUnavailableException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.getRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ResilientUserClientTest {
+    private static final String USER_JSON = "{\"id\":2,\"name\":\"John\",\"email\":\"john@example.com\"}";
+
+    private WireMockServer userService;
+
+    @BeforeEach
+    void setUp() {
+        userService = new WireMockServer(options().dynamicPort());
+        userService.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.stop();
+    }
+
+    @Test
+    void getUserByIdShouldFailFastWhenUserServiceIsSlowerThanReadTimeout() {
+        stubUser(aResponse().withFixedDelay(1000).withHeader("Content-Type", "application/json").withBody(USER_JSON));
+        ResilientUserClient client = createClient(10, Duration.ofSeconds(10));
+
+        long start = System.nanoTime();
+        assertThrows(UserServiceUnavailableException.class, () -> client.getUserById(1L, 2L));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertTrue(elapsedMillis < 1000, "Call should be cut by the read timeout, took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void getUserByIdShouldOpenCircuitAfterFailuresAndProbeWhenHalfOpen() throws InterruptedException {
+        stubUser(aResponse().withStatus(503));
+        ResilientUserClient client = createClient(10, Duration.ofMillis(300));
+
+        for (int i = 0; i < 4; i++) {
+            assertThrows(UserServiceUnavailableException.class, () -> client.getUserById(1L, 2L));
+        }
+        assertEquals(CircuitBreaker.State.OPEN, client.getCircuitBreakerState());
+
+        UserServiceUnavailableException rejected = assertThrows(UserServiceUnavailableException.class,
+                () -> client.getUserById(1L, 2L));
+        assertEquals("User service is unavailable, circuit breaker is open", rejected.getMessage());
+        userService.verify(4, getRequestedFor(urlEqualTo("/users/2")));
+
+        stubUser(aResponse().withHeader("Content-Type", "application/json").withBody(USER_JSON));
+        Thread.sleep(400);
+        for (int i = 0; i < 2; i++) {
+            UserDto userDto = client.getUserById(1L, 2L);
+            assertEquals(2L, userDto.id());
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreakerState());
+    }
+
+    @Test
+    void getUserByIdShouldNotOpenCircuitOnNotFoundUsers() {
+        stubUser(aResponse().withStatus(404));
+        ResilientUserClient client = createClient(10, Duration.ofSeconds(10));
+
+        for (int i = 0; i < 6; i++) {
+            assertThrows(NotFoundException.class, () -> client.getUserById(1L, 2L));
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreakerState());
+    }
+
+    @Test
+    void getUserByIdShouldNotOpenCircuitOnRejectedRequests() {
+        ResilientUserClient client = createClient(10, Duration.ofSeconds(10));
+
+        for (int status : new int[]{400, 401, 403, 400, 401, 403}) {
+            stubUser(aResponse().withStatus(status));
+            UserServiceRejectedException rejected = assertThrows(UserServiceRejectedException.class,
+                    () -> client.getUserById(1L, 2L));
+            assertEquals("User service rejected the request with status " + status, rejected.getMessage());
+        }
+
+        assertEquals(CircuitBreaker.State.CLOSED, client.getCircuitBreakerState());
+    }
+
+    @Test
+    void getUserByIdShouldRejectCallsAboveBulkheadLimit() throws Exception {
+        stubUser(aResponse().withFixedDelay(300).withHeader("Content-Type", "application/json").withBody(USER_JSON));
+        ResilientUserClient client = createClient(1, Duration.ofSeconds(10));
+        CountDownLatch firstCallStarted = new CountDownLatch(1);
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<UserDto> firstCall = executor.submit(() -> {
+                firstCallStarted.countDown();
+                return client.getUserById(1L, 2L);
+            });
+            firstCallStarted.await();
+            Thread.sleep(100);
+
+            UserServiceUnavailableException rejected = assertThrows(UserServiceUnavailableException.class,
+                    () -> client.getUserById(1L, 2L));
+
+            assertEquals("Too many concurrent calls to user service", rejected.getMessage());
+            assertEquals(2L, firstCall.get().id());
+        }
+    }
+
+    private void stubUser(ResponseDefinitionBuilder response) {
+        userService.stubFor(get(urlEqualTo("/users/2")).willReturn(response));
+    }
+
+    private ResilientUserClient createClient(int maxConcurrentCalls, Duration waitDurationInOpenState) {
+        UserClient feignClient = Feign.builder()
+                .contract(new SpringMvcContract())
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(
+                        () -> new HttpMessageConverters(new MappingJackson2HttpMessageConverter()))))
+                .errorDecoder(new UserClientErrorDecoder())
+                .retryer(Retryer.NEVER_RETRY)
+                .options(new Request.Options(200, TimeUnit.MILLISECONDS, 500, TimeUnit.MILLISECONDS, true))
+                .target(UserClient.class, userService.baseUrl());
+        UserClientProperties.Resilience resilience = new UserClientProperties.Resilience(
+                maxConcurrentCalls, Duration.ZERO, 50, 4, 4, Duration.ofSeconds(2),
+                waitDurationInOpenState, 2);
+        return new ResilientUserClient(feignClient, new UserClientProperties(null, resilience, null, null),
+                new SimpleMeterRegistry());
+    }
+}
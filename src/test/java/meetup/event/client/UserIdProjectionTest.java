@@ -0,0 +1,177 @@
+package meetup.event.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserChangeDto;
+import meetup.event.dto.user.UserChangeType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UserIdProjectionTest {
+    private final MutableClock clock = new MutableClock();
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private final UserClientProperties properties = new UserClientProperties(null, null, null,
+            new UserClientProperties.Projection(true, 2, Duration.ofMinutes(5), Duration.ofMinutes(1), "secret"));
+
+    @Mock
+    private UserClient userClient;
+
+    @Mock
+    private ExecutorService userLookupExecutor;
+
+    private UserIdProjection projection;
+
+    @BeforeEach
+    void setUp() {
+        projection = new UserIdProjection(properties, meterRegistry, clock);
+    }
+
+    @Test
+    void projectionShouldNotBeFreshBeforeBootstrap() {
+        projection.apply(new UserChangeDto(UserChangeType.CREATED, 1L));
+
+        assertFalse(projection.isFresh());
+    }
+
+    @Test
+    void projectionShouldFollowUserChangesAfterBootstrap() {
+        projection.bootstrap(List.of(1L, 2L));
+        projection.apply(new UserChangeDto(UserChangeType.CREATED, 3L));
+        projection.apply(new UserChangeDto(UserChangeType.DELETED, 1L));
+
+        assertTrue(projection.isFresh());
+        assertFalse(projection.contains(1L));
+        assertTrue(projection.contains(2L));
+        assertTrue(projection.contains(3L));
+        assertEquals(2.0, meterRegistry.get("users.projection.size").gauge().value());
+    }
+
+    @Test
+    void bootstrapShouldSkipUsersDeletedWhileSnapshotWasRead() {
+        projection.apply(new UserChangeDto(UserChangeType.DELETED, 2L));
+        projection.bootstrap(List.of(1L, 2L));
+
+        assertTrue(projection.contains(1L));
+        assertFalse(projection.contains(2L));
+    }
+
+    @Test
+    void bootstrapShouldKeepUsersCreatedWhileSnapshotWasRead() {
+        projection.apply(new UserChangeDto(UserChangeType.CREATED, 3L));
+        projection.bootstrap(List.of(1L, 2L));
+
+        assertTrue(projection.contains(3L));
+    }
+
+    @Test
+    void projectionShouldStayHeartbeatFreshWithinStalenessWindow() {
+        projection.bootstrap(List.of(1L));
+
+        clock.advance(Duration.ofMinutes(4));
+        projection.apply(new UserChangeDto(UserChangeType.HEARTBEAT, null));
+        clock.advance(Duration.ofMinutes(4));
+
+        assertTrue(projection.isFresh());
+    }
+
+    @Test
+    void projectionShouldNotRecoverFromStalenessUntilBootstrappedAgain() {
+        projection.bootstrap(List.of(1L, 2L));
+
+        clock.advance(Duration.ofMinutes(6));
+        assertFalse(projection.isFresh());
+
+        projection.apply(new UserChangeDto(UserChangeType.HEARTBEAT, null));
+        assertFalse(projection.isFresh());
+
+        projection.bootstrap(List.of(1L, 3L));
+        assertTrue(projection.isFresh());
+        assertFalse(projection.contains(2L));
+        assertTrue(projection.contains(3L));
+    }
+
+    @Test
+    void loaderShouldBootstrapProjectionPageByPageAfterLastReadId() {
+        UserIdProjectionLoader loader = new UserIdProjectionLoader(projection, userClient, properties,
+                userLookupExecutor);
+        when(userClient.getUserIds(null, 2)).thenReturn(List.of(1L, 5L));
+        when(userClient.getUserIds(5L, 2)).thenReturn(List.of(7L));
+
+        loader.load();
+
+        assertTrue(projection.isFresh());
+        assertTrue(projection.contains(5L));
+        assertTrue(projection.contains(7L));
+    }
+
+    @Test
+    void loaderShouldLoadAgainOnlyWhenProjectionIsNotFresh() {
+        UserIdProjectionLoader loader = new UserIdProjectionLoader(projection, userClient, properties,
+                userLookupExecutor);
+        projection.bootstrap(List.of(1L));
+
+        loader.loadIfNotFresh();
+        verify(userLookupExecutor, never()).execute(any());
+
+        clock.advance(Duration.ofMinutes(6));
+        loader.loadIfNotFresh();
+        verify(userLookupExecutor, times(1)).execute(any());
+    }
+
+    @Test
+    void loaderShouldLeaveProjectionStaleWhenUserServiceFails() {
+        UserIdProjectionLoader loader = new UserIdProjectionLoader(projection, userClient, properties,
+                userLookupExecutor);
+        when(userClient.getUserIds(null, 2)).thenThrow(new IllegalStateException("Unknown error"));
+
+        loader.load();
+
+        assertFalse(projection.isFresh());
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant instant = Instant.parse("2024-12-26T18:00:00Z");
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package meetup.event.config;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Two independent containers stand in for the primary and the replica, so each query shows where it was routed.
+ */
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "app.user-service.url=localhost:0",
+        "app.datasource.routing.enabled=true",
+        "app.datasource.routing.health-check-interval=1h"
+})
+class DataSourceRoutingIntegrationTest {
+    @Container
+    @ServiceConnection
+    private static final PostgreSQLContainer<?> PRIMARY = new PostgreSQLContainer<>("postgres:16.4-alpine")
+            .withDatabaseName("primary");
+
+    @Container
+    private static final PostgreSQLContainer<?> REPLICA = new PostgreSQLContainer<>("postgres:16.4-alpine")
+            .withDatabaseName("replica");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ReadWriteRoutingDataSource readWriteRoutingDataSource;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @DynamicPropertySource
+    static void replicaProperties(DynamicPropertyRegistry registry) {
+        registry.add("app.datasource.routing.replicas[0].url", REPLICA::getJdbcUrl);
+        registry.add("app.datasource.routing.replicas[0].username", REPLICA::getUsername);
+        registry.add("app.datasource.routing.replicas[0].password", REPLICA::getPassword);
+    }
+
+    @Test
+    void readOnlyTransactionsShouldGoToReplicaAndEverythingElseToPrimary() {
+        readWriteRoutingDataSource.checkReplicas(Duration.ofSeconds(10));
+
+        assertEquals("replica", currentDatabase(true));
+        assertEquals("primary", currentDatabase(false));
+        assertEquals("primary", jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+
+    @Test
+    void readOnlyWorkInsideWriteTransactionShouldStayOnPrimary() {
+        readWriteRoutingDataSource.checkReplicas(Duration.ofSeconds(10));
+        TransactionTemplate writeTransaction = new TransactionTemplate(transactionManager);
+
+        String database = writeTransaction.execute(status -> currentDatabase(true));
+
+        assertEquals("primary", database);
+    }
+
+    @Test
+    void readsShouldFallBackToPrimaryWhenReplicaLags() {
+        readWriteRoutingDataSource.checkReplicas(Duration.ofSeconds(-1));
+
+        assertEquals("primary", currentDatabase(true));
+    }
+
+    @Test
+    void readOnlyTransactionsShouldNotFillSecondLevelCache() {
+        assertEquals(CacheMode.GET, cacheMode(true));
+        assertEquals(CacheMode.NORMAL, cacheMode(false));
+    }
+
+    private CacheMode cacheMode(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> entityManager.unwrap(Session.class).getCacheMode());
+    }
+
+    private String currentDatabase(boolean readOnly) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setReadOnly(readOnly);
+        return transaction.execute(status -> jdbcTemplate.queryForObject("SELECT current_database()", String.class));
+    }
+}
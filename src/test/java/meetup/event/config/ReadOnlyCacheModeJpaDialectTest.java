@@ -0,0 +1,52 @@
+package meetup.event.config;
+
+import jakarta.persistence.EntityManager;
+import org.hibernate.CacheMode;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
+
+import java.sql.SQLException;
+
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ReadOnlyCacheModeJpaDialectTest {
+    private final ReadOnlyCacheModeJpaDialect dialect = new ReadOnlyCacheModeJpaDialect();
+
+    private final EntityManager entityManager = mock(EntityManager.class, RETURNS_DEEP_STUBS);
+
+    private final SessionImplementor session = mock(SessionImplementor.class, RETURNS_DEEP_STUBS);
+
+    @BeforeEach
+    void setUp() {
+        when(entityManager.unwrap(SessionImplementor.class)).thenReturn(session);
+        when(session.getCacheMode()).thenReturn(CacheMode.NORMAL);
+    }
+
+    @Test
+    void readOnlyTransactionShouldOnlyReadSecondLevelCache() throws SQLException {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setReadOnly(true);
+
+        Object transactionData = dialect.beginTransaction(entityManager, definition);
+
+        verify(session).setCacheMode(CacheMode.GET);
+
+        dialect.cleanupTransaction(transactionData);
+
+        verify(session).setCacheMode(CacheMode.NORMAL);
+    }
+
+    @Test
+    void readWriteTransactionShouldKeepCacheMode() throws SQLException {
+        Object transactionData = dialect.beginTransaction(entityManager, new DefaultTransactionDefinition());
+        dialect.cleanupTransaction(transactionData);
+
+        verify(session, never()).setCacheMode(CacheMode.GET);
+    }
+}
@@ -0,0 +1,118 @@
+package meetup.event.config;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReadWriteRoutingDataSourceTest {
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource firstReplica;
+
+    @Mock
+    private DataSource secondReplica;
+
+    @BeforeEach
+    void setUp() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void readOnlyTransactionsShouldAlternateBetweenHealthyReplicas() throws SQLException {
+        ReadWriteRoutingDataSource dataSource = createDataSource(true);
+        stubReplicationLag(firstReplica, 0.5);
+        stubReplicationLag(secondReplica, 0.2);
+        dataSource.checkReplicas(Duration.ofSeconds(1));
+
+        assertEquals(List.of("replica-0", "replica-1", "replica-0"),
+                List.of(dataSource.determineCurrentLookupKey(), dataSource.determineCurrentLookupKey(),
+                        dataSource.determineCurrentLookupKey()));
+    }
+
+    @Test
+    void readWriteTransactionsShouldUsePrimary() throws SQLException {
+        ReadWriteRoutingDataSource dataSource = createDataSource(true);
+        stubReplicationLag(firstReplica, 0);
+        stubReplicationLag(secondReplica, 0);
+        dataSource.checkReplicas(Duration.ofSeconds(1));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void laggingAndUnavailableReplicasShouldBeSkipped() throws SQLException {
+        ReadWriteRoutingDataSource dataSource = createDataSource(true);
+        stubReplicationLag(firstReplica, 30);
+        when(secondReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        dataSource.checkReplicas(Duration.ofSeconds(10));
+
+        assertTrue(dataSource.getHealthyReplicaKeys().isEmpty());
+        assertEquals(ReadWriteRoutingDataSource.PRIMARY, dataSource.determineCurrentLookupKey());
+    }
+
+    @Test
+    void replicasNotStreamingFromPrimaryShouldBeSkipped() throws SQLException {
+        ReadWriteRoutingDataSource dataSource = createDataSource(true);
+        ResultSet disconnected = stubReplicationLag(firstReplica, 0);
+        when(disconnected.wasNull()).thenReturn(true);
+        stubReplicationLag(secondReplica, 0.2);
+
+        dataSource.checkReplicas(Duration.ofSeconds(10));
+
+        assertEquals(List.of("replica-1"), dataSource.getHealthyReplicaKeys());
+    }
+
+    @Test
+    void readsShouldStayOnReplicasWhenFallbackToPrimaryIsDisabled() throws SQLException {
+        ReadWriteRoutingDataSource dataSource = createDataSource(false);
+        when(firstReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(secondReplica.getConnection()).thenThrow(new SQLException("Connection refused"));
+
+        dataSource.checkReplicas(Duration.ofSeconds(10));
+
+        assertTrue(dataSource.determineCurrentLookupKey().toString().startsWith("replica-"));
+    }
+
+    private ReadWriteRoutingDataSource createDataSource(boolean fallbackToPrimary) {
+        return new ReadWriteRoutingDataSource(primary, List.of(firstReplica, secondReplica), fallbackToPrimary);
+    }
+
+    private ResultSet stubReplicationLag(DataSource replica, double lagSeconds) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        ResultSet resultSet = mock(ResultSet.class);
+        when(replica.getConnection()).thenReturn(connection);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery(anyString())).thenReturn(resultSet);
+        when(resultSet.getDouble(1)).thenReturn(lagSeconds);
+        return resultSet;
+    }
+}
@@ -0,0 +1,89 @@
+package meetup.event.config;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import feign.Feign;
+import feign.Retryer;
+import feign.hc5.ApacheHttp5Client;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import meetup.event.client.UserClient;
+import meetup.event.client.UserClientErrorDecoder;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClientBuilder;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.io.HttpClientConnectionManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.autoconfigure.http.HttpMessageConverters;
+import org.springframework.cloud.openfeign.support.ResponseEntityDecoder;
+import org.springframework.cloud.openfeign.support.SpringDecoder;
+import org.springframework.cloud.openfeign.support.SpringMvcContract;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+import java.time.Duration;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.options;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UserClientTransportConfigurationTest {
+    private final UserClientTransportConfiguration configuration = new UserClientTransportConfiguration();
+
+    private WireMockServer userService;
+
+    private PoolingHttpClientConnectionManager connectionManager;
+
+    private CloseableHttpClient httpClient;
+
+    @BeforeEach
+    void setUp() {
+        userService = new WireMockServer(options().dynamicPort());
+        userService.start();
+        userService.stubFor(get(urlEqualTo("/users/2")).willReturn(aResponse()
+                .withHeader("Content-Type", "application/json")
+                .withBody("{\"id\":2,\"name\":\"John\"}")));
+
+        connectionManager = new PoolingHttpClientConnectionManager();
+        UserClientProperties properties = new UserClientProperties(null, null,
+                new UserClientProperties.Transport(Duration.ofSeconds(30)), null);
+        HttpClientBuilder builder = HttpClients.custom().setConnectionManager(connectionManager);
+        configuration.idleConnectionEvictionCustomizer(properties).customize(builder);
+        httpClient = builder.build();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        httpClient.close();
+        userService.stop();
+    }
+
+    @Test
+    void pooledTransportShouldReuseKeepAliveConnectionAndExportPoolMetrics() {
+        UserClient userClient = Feign.builder()
+                .client(new ApacheHttp5Client(httpClient))
+                .contract(new SpringMvcContract())
+                .decoder(new ResponseEntityDecoder(new SpringDecoder(
+                        () -> new HttpMessageConverters(new MappingJackson2HttpMessageConverter()))))
+                .errorDecoder(new UserClientErrorDecoder())
+                .retryer(Retryer.NEVER_RETRY)
+                .target(UserClient.class, userService.baseUrl());
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        StaticListableBeanFactory beanFactory = new StaticListableBeanFactory();
+        beanFactory.addBean("hc5ConnectionManager", connectionManager);
+        configuration.feignConnectionPoolMetrics(beanFactory.getBeanProvider(HttpClientConnectionManager.class))
+                .bindTo(meterRegistry);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(2L, userClient.getUserById(1L, 2L).id());
+        }
+
+        assertEquals(1, connectionManager.getTotalStats().getAvailable());
+        assertEquals(0, connectionManager.getTotalStats().getLeased());
+        assertEquals(1.0, meterRegistry.get("httpcomponents.httpclient.pool.total.connections")
+                .tag("httpclient", "feign").tag("state", "available").gauge().value());
+    }
+}
@@ -1,50 +1,82 @@
 package meetup.event.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import meetup.event.config.ExportConcurrencyLimiter;
+import meetup.event.dto.event.EventBulkResultDto;
+import meetup.event.dto.event.EventCursor;
 import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
+import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventTotalMode;
+import meetup.event.dto.event.EventVersion;
 import meetup.event.dto.event.NewEventDto;
 import meetup.event.dto.event.UpdatedEventDto;
 import meetup.event.dto.teammember.NewTeamMemberDto;
 import meetup.event.dto.teammember.TeamMemberDto;
+import meetup.event.dto.teammember.TeamRosterMemberDto;
+import meetup.event.dto.teammember.TeamRosterOutcome;
+import meetup.event.dto.teammember.TeamRosterResultDto;
 import meetup.event.dto.teammember.UpdateTeamMemberDto;
 import meetup.event.mapper.EventMapper;
 import meetup.event.model.event.Event;
 import meetup.event.model.teammember.TeamMemberRole;
 import meetup.event.service.event.EventService;
 import meetup.event.service.teammember.TeamMemberService;
+import meetup.exception.PreconditionFailedException;
+import meetup.exception.UserServiceRejectedException;
+import meetup.exception.UserServiceUnavailableException;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.method.annotation.HandlerMethodValidationException;
 
+import java.io.ByteArrayOutputStream;
 import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.function.Consumer;
 
 import static meetup.event.model.event.EventRegistrationStatus.CLOSED;
 import static meetup.event.model.event.EventRegistrationStatus.OPEN;
+import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = EventController.class)
@@ -67,6 +99,9 @@ class EventControllerTest {
     @Autowired
     private EventController eventController;
 
+    @Autowired
+    private ExportConcurrencyLimiter exportConcurrencyLimiter;
+
 
     private static final String HEADER_X_USER_ID = "X-User-Id";
 
@@ -111,6 +146,10 @@ class EventControllerTest {
             .registrationStatus(OPEN)
             .build();
 
+    private final EventVersion eventVersion = new EventVersion(1L, 3L,
+            LocalDateTime.of(2024, 12, 20, 10, 0, 0),
+            LocalDateTime.of(2024, 12, 21, 10, 0, 0), 5L);
+
     @Test
     void createEvent() throws Exception {
         when(eventService.createEvent(anyLong(), any()))
@@ -141,6 +180,58 @@ class EventControllerTest {
         verify(eventMapper, times(1)).toEventDto(event);
     }
 
+    @Test
+    void createEventsShouldReturnResultPerEvent() throws Exception {
+        List<NewEventDto> newEventDtos = List.of(newEventDto, newEventDto);
+        when(eventService.createEvents(1L, newEventDtos))
+                .thenReturn(List.of(EventBulkResultDto.created(0, eventDto),
+                        EventBulkResultDto.rejected(1, List.of("Start date and time must be in future"))));
+
+        mvc.perform(post("/events/bulk")
+                        .content(mapper.writeValueAsString(newEventDtos))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].index", is(0)))
+                .andExpect(jsonPath("$[0].event.id", is(eventDto.id()), Long.class))
+                .andExpect(jsonPath("$[0].errors", hasSize(0)))
+                .andExpect(jsonPath("$[1].index", is(1)))
+                .andExpect(jsonPath("$[1].event").doesNotExist())
+                .andExpect(jsonPath("$[1].errors[0]", is("Start date and time must be in future")));
+    }
+
+    @Test
+    void createEventsWithEmptyList() throws Exception {
+        mvc.perform(post("/events/bulk")
+                        .content("[]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(result -> Assertions.assertInstanceOf(HandlerMethodValidationException.class,
+                        result.getResolvedException()))
+                .andExpect(jsonPath("$.error", is("size must be between 1 and 500")))
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
+
+        verify(eventService, never()).createEvents(anyLong(), any());
+    }
+
+    @Test
+    void createEventsOverBulkSize() throws Exception {
+        List<NewEventDto> newEventDtos = Collections.nCopies(501, NewEventDto.builder().name("event").build());
+
+        mvc.perform(post("/events/bulk")
+                        .content(mapper.writeValueAsString(newEventDtos))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
+
+        verify(eventService, never()).createEvents(anyLong(), any());
+    }
+
     @Test
     void createEventWithBlankName() throws Exception {
         NewEventDto newEventDto = NewEventDto.builder()
@@ -335,9 +426,9 @@ class EventControllerTest {
 
     @Test
     void updateEvent() throws Exception {
-        when(eventService.updateEvent(anyLong(), anyLong(), any()))
+        when(eventService.updateEvent(anyLong(), anyLong(), any(), any()))
                 .thenReturn(event);
-        when(eventService.updateEvent(1L, eventDto.id(), updatedEventDto))
+        when(eventService.updateEvent(1L, eventDto.id(), updatedEventDto, null))
                 .thenReturn(event);
         when(eventMapper.toEventDto(event))
                 .thenReturn(eventDto);
@@ -358,10 +449,72 @@ class EventControllerTest {
                 .andExpect(jsonPath("$.ownerId", is(event.getOwnerId()), Long.class))
                 .andExpect(jsonPath("$.registrationStatus", is("OPEN")));
 
-        verify(eventService, times(1)).updateEvent(anyLong(), anyLong(), any());
+        verify(eventService, times(1)).updateEvent(anyLong(), anyLong(), any(), any());
         verify(eventMapper, times(1)).toEventDto(event);
     }
 
+    @Test
+    void updateEventShouldBeConditionalOnIfMatch() throws Exception {
+        UpdatedEventDto description = UpdatedEventDto.builder().description("description upd").build();
+        Event updated = event.toBuilder().version(4L).build();
+        when(eventService.updateEvent(1L, 1L, description, 3L))
+                .thenReturn(updated);
+        when(eventMapper.toEventDto(updated))
+                .thenReturn(eventDto);
+
+        mvc.perform(patch("/events/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(description))
+                        .header(HEADER_X_USER_ID, 1)
+                        .header(HttpHeaders.IF_MATCH, eventETag("owner")))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4-owner\""));
+    }
+
+    @Test
+    void updateEventWithStaleIfMatch() throws Exception {
+        UpdatedEventDto description = UpdatedEventDto.builder().description("description upd").build();
+        when(eventService.updateEvent(1L, 1L, description, 2L))
+                .thenThrow(new PreconditionFailedException("Event with id=1 has version 3, not 2"));
+
+        mvc.perform(patch("/events/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(description))
+                        .header(HEADER_X_USER_ID, 1)
+                        .header(HttpHeaders.IF_MATCH, "\"2-owner\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.status", is(HttpStatus.PRECONDITION_FAILED.value())));
+
+        verify(eventMapper, never()).toEventDto(any());
+    }
+
+    @Test
+    void updateEventWithForeignIfMatchShouldMatchNoVersion() throws Exception {
+        UpdatedEventDto description = UpdatedEventDto.builder().description("description upd").build();
+        when(eventService.updateEvent(1L, 1L, description, -1L))
+                .thenThrow(new PreconditionFailedException("Event with id=1 has version 3, not -1"));
+
+        mvc.perform(patch("/events/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(description))
+                        .header(HEADER_X_USER_ID, 1)
+                        .header(HttpHeaders.IF_MATCH, "\"abc\""))
+                .andExpect(status().isPreconditionFailed());
+    }
+
+    @Test
+    void updateEventWithLatitudeOnly() throws Exception {
+        UpdatedEventDto latitudeOnly = UpdatedEventDto.builder().latitude(52.52).build();
+
+        mvc.perform(patch("/events/1")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(latitudeOnly))
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadRequest());
+
+        verify(eventService, never()).updateEvent(anyLong(), anyLong(), any(), any());
+    }
+
     @Test
     void updateEventWithBlankName() throws Exception {
         UpdatedEventDto updatedEvent = UpdatedEventDto.builder()
@@ -380,7 +533,7 @@ class EventControllerTest {
                 .andExpect(result -> Assertions.assertInstanceOf(MethodArgumentNotValidException.class, result.getResolvedException()))
                 .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
 
-        verify(eventService, never()).updateEvent(anyLong(), anyLong(), any());
+        verify(eventService, never()).updateEvent(anyLong(), anyLong(), any(), any());
         verify(eventMapper, never()).toEventDto(any());
     }
 
@@ -402,17 +555,18 @@ class EventControllerTest {
                 .andExpect(result -> Assertions.assertInstanceOf(MethodArgumentNotValidException.class, result.getResolvedException()))
                 .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
 
-        verify(eventService, never()).updateEvent(anyLong(), anyLong(), any());
+        verify(eventService, never()).updateEvent(anyLong(), anyLong(), any(), any());
         verify(eventMapper, never()).toEventDto(any());
     }
 
     @Test
     void getEventById() throws Exception {
-        when(eventService.getEventByEventId(anyLong(), anyLong()))
-                .thenReturn(event);
+        when(eventService.getEventVersion(1L))
+                .thenReturn(eventVersion);
+        Event versionedEvent = versionedEvent(eventVersion.version());
         when(eventService.getEventByEventId(1L, 1L))
-                .thenReturn(event);
-        when(eventMapper.toEventDto(event))
+                .thenReturn(versionedEvent);
+        when(eventMapper.toEventDto(versionedEvent))
                 .thenReturn(eventDto);
 
         mvc.perform(get("/events/1")
@@ -428,19 +582,165 @@ class EventControllerTest {
                 .andExpect(jsonPath("$.startDateTime", is("2024-12-26 18:00:00")))
                 .andExpect(jsonPath("$.endDateTime", is("2024-12-26 22:00:00")))
                 .andExpect(jsonPath("$.location", is("location")))
-                .andExpect(jsonPath("$.ownerId", is(event.getOwnerId()), Long.class))
-                .andExpect(jsonPath("$.registrationStatus", is("OPEN")));
+                .andExpect(jsonPath("$.ownerId", is(eventDto.ownerId()), Long.class))
+                .andExpect(jsonPath("$.registrationStatus", is("OPEN")))
+                .andExpect(header().string(HttpHeaders.ETAG, eventETag("owner")))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(header().string(HttpHeaders.VARY, HEADER_X_USER_ID));
 
         verify(eventService, times(1)).getEventByEventId(anyLong(), anyLong());
-        verify(eventMapper, times(1)).toEventDto(event);
+        verify(eventMapper, times(1)).toEventDto(versionedEvent);
+    }
+
+    @Test
+    void getEventByIdWithOtherUserShouldGetOtherETag() throws Exception {
+        when(eventService.getEventVersion(1L))
+                .thenReturn(eventVersion);
+        Event versionedEvent = versionedEvent(eventVersion.version());
+        when(eventService.getEventByEventId(1L, 2L))
+                .thenReturn(versionedEvent);
+        when(eventMapper.toEventDto(versionedEvent))
+                .thenReturn(eventDto);
+
+        mvc.perform(get("/events/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, eventETag("owner"))
+                        .header(HEADER_X_USER_ID, 2))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eventETag("public")))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HEADER_X_USER_ID));
+    }
+
+    @Test
+    void getEventByIdShouldTagEventReturnedRatherThanVersionChecked() throws Exception {
+        when(eventService.getEventVersion(1L))
+                .thenReturn(eventVersion);
+        Event olderEvent = versionedEvent(eventVersion.version() - 1);
+        when(eventService.getEventByEventId(1L, 1L))
+                .thenReturn(olderEvent);
+        when(eventMapper.toEventDto(olderEvent))
+                .thenReturn(eventDto);
+
+        mvc.perform(get("/events/1")
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(header().stringValues(HttpHeaders.ETAG, "\"2-owner\""))
+                .andExpect(header().dateValue(HttpHeaders.LAST_MODIFIED,
+                        toEpochMilli(olderEvent.getUpdatedDateTime())));
+    }
+
+    @Test
+    void getEventByIdWithMatchingETagShouldNotLoadEvent() throws Exception {
+        when(eventService.getEventVersion(1L))
+                .thenReturn(eventVersion);
+
+        mvc.perform(get("/events/1")
+                        .header(HttpHeaders.IF_NONE_MATCH, eventETag("owner"))
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eventETag("owner")))
+                .andExpect(header().stringValues(HttpHeaders.VARY, HEADER_X_USER_ID))
+                .andExpect(content().string(""));
+
+        verify(eventService, never()).getEventByEventId(anyLong(), anyLong());
+        verify(eventMapper, never()).toEventDto(any());
+    }
+
+    @Test
+    void getEventByIdNotModifiedSinceShouldNotLoadEvent() throws Exception {
+        when(eventService.getEventVersion(1L))
+                .thenReturn(eventVersion);
+
+        mvc.perform(get("/events/1")
+                        .header(HttpHeaders.IF_MODIFIED_SINCE, toEpochMilli(eventVersion.updatedDateTime()))
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isNotModified());
+
+        verify(eventService, never()).getEventByEventId(anyLong(), anyLong());
+    }
+
+    @Test
+    void getTeamsByEventIdWithMatchingETagShouldNotLoadTeam() throws Exception {
+        when(eventService.getEventVersion(1L))
+                .thenReturn(eventVersion);
+
+        mvc.perform(get("/events/teams/1")
+                        .header(HttpHeaders.IF_NONE_MATCH,
+                                "\"5-team\"")
+                        .header(HEADER_X_USER_ID, 2))
+                .andExpect(status().isNotModified());
+
+        verify(teamMemberService, never()).getTeamsByEventId(anyLong(), anyLong());
+    }
+
+    @Test
+    void getTeamsByEventIdAfterTeamChangeShouldLoadTeam() throws Exception {
+        when(eventService.getEventVersion(1L))
+                .thenReturn(eventVersion);
+        when(teamMemberService.getTeamsByEventId(2L, 1L))
+                .thenReturn(List.of(new TeamMemberDto(1L, 2L, TeamMemberRole.MEMBER)));
+
+        mvc.perform(get("/events/teams/1")
+                        .header(HttpHeaders.IF_NONE_MATCH,
+                                "\"4-team\"")
+                        .header(HEADER_X_USER_ID, 2))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId", is(2)))
+                .andExpect(header().string(HttpHeaders.ETAG,
+                        "\"5-team\""));
+    }
+
+    private Event versionedEvent(long version) {
+        return event.toBuilder()
+                .ownerId(eventVersion.ownerId())
+                .version(version)
+                .updatedDateTime(eventVersion.updatedDateTime().minusDays(eventVersion.version() - version))
+                .build();
+    }
+
+    private String eventETag(String representation) {
+        return "\"" + eventVersion.version() + "-" + representation + "\"";
+    }
+
+    private static long toEpochMilli(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    @Test
+    void addTeamMemberWhenUserServiceIsUnavailable() throws Exception {
+        NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(10L, 2L, TeamMemberRole.MEMBER);
+        when(teamMemberService.addTeamMember(anyLong(), any()))
+                .thenThrow(new UserServiceUnavailableException("User service is unavailable, circuit breaker is open"));
+
+        mvc.perform(post("/events/teams")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(newTeamMemberDto))
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(jsonPath("$.status", is(HttpStatus.SERVICE_UNAVAILABLE.value())))
+                .andExpect(jsonPath("$.error", is("User service is unavailable, circuit breaker is open")));
+    }
+
+    @Test
+    void addTeamMemberWhenUserServiceRejectsRequest() throws Exception {
+        NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(10L, 2L, TeamMemberRole.MEMBER);
+        when(teamMemberService.addTeamMember(anyLong(), any()))
+                .thenThrow(new UserServiceRejectedException("User service rejected the request with status 401"));
+
+        mvc.perform(post("/events/teams")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(newTeamMemberDto))
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadGateway())
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_GATEWAY.value())))
+                .andExpect(jsonPath("$.error", is("User service rejected the request with status 401")));
     }
 
     @Test
     void getEvents() throws Exception {
-        List<Event> events = new ArrayList<>();
+        List<EventDto> events = new ArrayList<>();
 
         when(eventService.getEvents(anyInt(), anyInt(), any()))
-                .thenReturn(events);
+                .thenReturn(new SliceImpl<>(events));
 
         mvc.perform(get("/events?from=0&size=20&userId=1")
                         .content(mapper.writeValueAsString(events))
@@ -453,7 +753,123 @@ class EventControllerTest {
                 .andExpect(status().isOk());
 
         verify(eventService, times(1)).getEvents(anyInt(), anyInt(), any());
-        verify(eventMapper, times(1)).toDtoList(events);
+        verify(eventMapper, never()).toDtoList(any());
+    }
+
+    @Test
+    void getEventsWithTimeWindow() throws Exception {
+        when(eventService.getEvents(anyInt(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(eventDto)));
+
+        mvc.perform(get("/events")
+                        .queryParam("rangeStart", "2024-12-26 00:00:00")
+                        .queryParam("rangeEnd", "2024-12-27 00:00:00")
+                        .queryParam("upcoming", "true"))
+                .andExpect(status().isOk());
+
+        verify(eventService).getEvents(eq(0), eq(10), argThat(filter ->
+                filter.rangeStart().equals(LocalDateTime.of(2024, 12, 26, 0, 0, 0))
+                        && filter.rangeEnd().equals(LocalDateTime.of(2024, 12, 27, 0, 0, 0))
+                        && filter.upcoming()));
+    }
+
+    @Test
+    void getEventsNearPoint() throws Exception {
+        when(eventService.getEvents(anyInt(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of(eventDto)));
+
+        mvc.perform(get("/events")
+                        .queryParam("latitude", "55.75")
+                        .queryParam("longitude", "37.62")
+                        .queryParam("radiusKm", "5"))
+                .andExpect(status().isOk());
+
+        verify(eventService).getEvents(eq(0), eq(10), argThat(filter -> filter.latitude() == 55.75
+                && filter.longitude() == 37.62 && filter.radiusKm() == 5));
+    }
+
+    @Test
+    void getEventsNearPointWithoutRadius() throws Exception {
+        mvc.perform(get("/events")
+                        .queryParam("latitude", "55.75")
+                        .queryParam("longitude", "37.62"))
+                .andExpect(result -> Assertions.assertNotNull(result.getResolvedException()));
+
+        verify(eventService, never()).getEvents(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void getEventsWithExactTotal() throws Exception {
+        when(eventService.getEvents(eq(0), eq(1), any()))
+                .thenReturn(new SliceImpl<>(List.of(EventDto.builder().build()), PageRequest.of(0, 1), true));
+        when(eventService.countEvents(any(), eq(EventTotalMode.EXACT)))
+                .thenReturn(42L);
+
+        mvc.perform(get("/events")
+                        .queryParam("size", "1")
+                        .queryParam("total", "EXACT")
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "true"))
+                .andExpect(header().string("X-Total-Count", "42"));
+    }
+
+    @Test
+    void getEventsWithoutTotalShouldNotCountEvents() throws Exception {
+        when(eventService.getEvents(anyInt(), anyInt(), any()))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        mvc.perform(get("/events")
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Has-Next", "false"))
+                .andExpect(header().doesNotExist("X-Total-Count"));
+
+        verify(eventService, never()).countEvents(any(), any());
+    }
+
+    @Test
+    void getEventsWithCursor() throws Exception {
+        EventDto lastEvent = EventDto.builder()
+                .id(7L)
+                .startDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
+                .build();
+        EventCursor cursor = new EventCursor(LocalDateTime.of(2024, 12, 25, 18, 0, 0), 3L);
+
+        when(eventService.getEventsAfter(eq(cursor), eq(1), any()))
+                .thenReturn(new SliceImpl<>(List.of(lastEvent), PageRequest.of(0, 1), true));
+
+        mvc.perform(get("/events")
+                        .queryParam("size", "1")
+                        .queryParam("cursor", cursor.encode())
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", EventCursor.of(lastEvent).encode()));
+
+        verify(eventService, never()).getEvents(anyInt(), anyInt(), any());
+    }
+
+    @Test
+    void getEventsWithEmptyCursorOnLastPage() throws Exception {
+        when(eventService.getEventsAfter(isNull(), eq(10), any()))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        mvc.perform(get("/events")
+                        .queryParam("cursor", "")
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"));
+    }
+
+    @Test
+    void getEventsWithInvalidCursor() throws Exception {
+        mvc.perform(get("/events")
+                        .queryParam("cursor", "not-a-cursor")
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
+
+        verify(eventService, never()).getEventsAfter(any(), anyInt(), any());
     }
 
     @Test
@@ -464,9 +880,9 @@ class EventControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(events))
                         .header(HEADER_X_USER_ID, 1))
-                .andExpect(status().isInternalServerError())
+                .andExpect(status().isBadRequest())
                 .andExpect(result -> Assertions.assertNotNull(result.getResolvedException()))
-                .andExpect(jsonPath("$.status", is(HttpStatus.INTERNAL_SERVER_ERROR.value())));
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
 
         verify(eventService, never()).getEvents(anyInt(), anyInt(), any());
         verify(eventMapper, never()).toDtoList(any());
@@ -480,9 +896,9 @@ class EventControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(events))
                         .header(HEADER_X_USER_ID, 1))
-                .andExpect(status().isInternalServerError())
+                .andExpect(status().isBadRequest())
                 .andExpect(result -> Assertions.assertNotNull(result.getResolvedException()))
-                .andExpect(jsonPath("$.status", is(HttpStatus.INTERNAL_SERVER_ERROR.value())));
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
 
         verify(eventService, never()).getEvents(anyInt(), anyInt(), any());
         verify(eventMapper, never()).toDtoList(any());
@@ -496,14 +912,129 @@ class EventControllerTest {
                         .contentType(MediaType.APPLICATION_JSON)
                         .content(mapper.writeValueAsString(events))
                         .header(HEADER_X_USER_ID, 1))
-                .andExpect(status().isInternalServerError())
+                .andExpect(status().isBadRequest())
                 .andExpect(result -> Assertions.assertNotNull(result.getResolvedException()))
-                .andExpect(jsonPath("$.status", is(HttpStatus.INTERNAL_SERVER_ERROR.value())));
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
 
         verify(eventService, never()).getEvents(anyInt(), anyInt(), any());
         verify(eventMapper, never()).toDtoList(any());
     }
 
+    @Test
+    void getFacetsShouldReturnCountsForFilter() throws Exception {
+        EventFacetsDto facets = new EventFacetsDto(5,
+                List.of(new EventFacetsDto.RegistrationStatusCount(OPEN, 3),
+                        new EventFacetsDto.RegistrationStatusCount(CLOSED, 2)),
+                List.of(new EventFacetsDto.OwnerCount(7L, 5)));
+        when(eventService.getFacets(7L, null, 3)).thenReturn(facets);
+
+        mvc.perform(get("/events/facets")
+                        .param("userId", "7")
+                        .param("owners", "3")
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total", is(5)))
+                .andExpect(jsonPath("$.registrationStatuses[0].registrationStatus", is("OPEN")))
+                .andExpect(jsonPath("$.registrationStatuses[0].count", is(3)))
+                .andExpect(jsonPath("$.owners[0].ownerId", is(7)))
+                .andExpect(jsonPath("$.owners[0].count", is(5)));
+    }
+
+    @Test
+    void exportEventsShouldWriteOneEventPerLine() throws Exception {
+        EventDto secondEventDto = EventDto.builder()
+                .id(2L)
+                .name("second event")
+                .registrationStatus(CLOSED)
+                .build();
+        doAnswer(invocation -> {
+            Consumer<EventDto> consumer = invocation.getArgument(1);
+            consumer.accept(eventDto);
+            consumer.accept(secondEventDto);
+            return null;
+        }).when(eventService).exportEvents(any(), any());
+
+        MvcResult result = mvc.perform(get("/events/export")
+                        .param("userId", "7"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+
+        List<String> lines = body.lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(body.endsWith("\n"));
+        assertEquals(1L, mapper.readValue(lines.get(0), EventDto.class).id());
+        assertEquals(2L, mapper.readValue(lines.get(1), EventDto.class).id());
+        verify(eventService).exportEvents(argThat(filter -> filter.userId() == 7L), any());
+    }
+
+    @Test
+    void exportEventsShouldFlushEveryFetchedBatch() throws Exception {
+        List<Integer> linesAtFlush = new ArrayList<>();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream() {
+            @Override
+            public void flush() {
+                linesAtFlush.add((int) toString(StandardCharsets.UTF_8).lines().count());
+            }
+        };
+        doAnswer(invocation -> {
+            Consumer<EventDto> consumer = invocation.getArgument(1);
+            for (int i = 0; i < 2500; i++) {
+                consumer.accept(eventDto);
+            }
+            return null;
+        }).when(eventService).exportEvents(any(), any());
+
+        eventController.exportEvents(EventSearchFilter.builder().build()).getBody().writeTo(bytes);
+
+        assertEquals(List.of(1000, 2000, 2500), linesAtFlush);
+    }
+
+    @Test
+    void exportEventsWithRangeEndBeforeStartShouldBeRejectedBeforeStreaming() throws Exception {
+        doThrow(new DateTimeException("Range end: 2024-12-25T00:00 is before range start: 2024-12-26T00:00"))
+                .when(eventService).checkSearchFilter(any());
+
+        mvc.perform(get("/events/export")
+                        .param("rangeStart", "2024-12-26T00:00:00")
+                        .param("rangeEnd", "2024-12-25T00:00:00"))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error",
+                        is("Range end: 2024-12-25T00:00 is before range start: 2024-12-26T00:00")));
+
+        verify(eventService, never()).exportEvents(any(), any());
+        // the export slot was not taken
+        for (int i = 0; i < 4; i++) {
+            exportConcurrencyLimiter.acquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            exportConcurrencyLimiter.release();
+        }
+    }
+
+    @Test
+    void exportEventsOverConcurrencyLimitShouldBeRejected() throws Exception {
+        for (int i = 0; i < 4; i++) {
+            exportConcurrencyLimiter.acquire();
+        }
+        try {
+            mvc.perform(get("/events/export"))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(jsonPath("$.status", is(429)));
+        } finally {
+            for (int i = 0; i < 4; i++) {
+                exportConcurrencyLimiter.release();
+            }
+        }
+
+        verify(eventService, never()).exportEvents(any(), any());
+    }
+
     @Test
     void deleteEventById() throws Exception {
         mvc.perform(delete("/events/1")
@@ -514,6 +1045,73 @@ class EventControllerTest {
                 .andExpect(status().isNoContent());
     }
 
+    @Test
+    void upsertTeamRoster_shouldReturnOutcomePerMember() throws Exception {
+        List<TeamRosterMemberDto> members = List.of(new TeamRosterMemberDto(2L, TeamMemberRole.MEMBER),
+                new TeamRosterMemberDto(3L, TeamMemberRole.MANAGER));
+        when(teamMemberService.upsertRoster(1L, 10L, members))
+                .thenReturn(List.of(new TeamRosterResultDto(2L, TeamMemberRole.MEMBER, TeamRosterOutcome.ADDED),
+                        new TeamRosterResultDto(3L, TeamMemberRole.MANAGER, TeamRosterOutcome.USER_NOT_FOUND)));
+
+        mvc.perform(post("/events/teams/10/roster")
+                        .content(mapper.writeValueAsString(members))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].userId", is(2)))
+                .andExpect(jsonPath("$[0].outcome", is("ADDED")))
+                .andExpect(jsonPath("$[1].userId", is(3)))
+                .andExpect(jsonPath("$[1].outcome", is("USER_NOT_FOUND")));
+    }
+
+    @Test
+    void upsertTeamRoster_shouldRejectEmptyRoster() throws Exception {
+        mvc.perform(post("/events/teams/10/roster")
+                        .content("[]")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("size must be between 1 and 10000")))
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
+
+        verify(teamMemberService, never()).upsertRoster(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void upsertTeamRoster_shouldRejectRosterOverLimit() throws Exception {
+        List<TeamRosterMemberDto> members = Collections.nCopies(10_001,
+                new TeamRosterMemberDto(2L, TeamMemberRole.MEMBER));
+
+        mvc.perform(post("/events/teams/10/roster")
+                        .content(mapper.writeValueAsString(members))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
+
+        verify(teamMemberService, never()).upsertRoster(anyLong(), anyLong(), any());
+    }
+
+    @Test
+    void upsertTeamRoster_shouldRejectMemberWithoutRole() throws Exception {
+        List<TeamRosterMemberDto> members = List.of(new TeamRosterMemberDto(2L, TeamMemberRole.MEMBER),
+                new TeamRosterMemberDto(3L, null));
+
+        mvc.perform(post("/events/teams/10/roster")
+                        .content(mapper.writeValueAsString(members))
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(HEADER_X_USER_ID, 1))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error", is("User Role cannot be null")))
+                .andExpect(jsonPath("$.status", is(HttpStatus.BAD_REQUEST.value())));
+
+        verify(teamMemberService, never()).upsertRoster(anyLong(), anyLong(), any());
+    }
+
     @Test
     void addTeamMember_shouldReturnCreatedTeamMember() {
         Long userId = 1L;
@@ -550,9 +1148,10 @@ class EventControllerTest {
         Long eventId = 10L;
         List<TeamMemberDto> teamMembers = List.of(new TeamMemberDto(10L, 2L, TeamMemberRole.MEMBER));
 
+        when(eventService.getEventVersion(eventId)).thenReturn(eventVersion);
         when(teamMemberService.getTeamsByEventId(userId, eventId)).thenReturn(teamMembers);
 
-        ResponseEntity<List<TeamMemberDto>> response = eventController.getTeamsByEventId(userId, eventId);
+        ResponseEntity<List<TeamMemberDto>> response = eventController.getTeamsByEventId(userId, eventId, webRequest());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertEquals(teamMembers, response.getBody());
@@ -564,9 +1163,10 @@ class EventControllerTest {
         Long userId = 1L;
         Long eventId = 10L;
 
+        when(eventService.getEventVersion(eventId)).thenReturn(eventVersion);
         when(teamMemberService.getTeamsByEventId(userId, eventId)).thenReturn(Collections.emptyList());
 
-        ResponseEntity<List<TeamMemberDto>> response = eventController.getTeamsByEventId(userId, eventId);
+        ResponseEntity<List<TeamMemberDto>> response = eventController.getTeamsByEventId(userId, eventId, webRequest());
 
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertTrue(response.getBody().isEmpty());
@@ -621,4 +1221,7 @@ class EventControllerTest {
         verify(teamMemberService, times(1)).deleteTeamMemberFromEvent(userId, eventId, memberId);
     }
 
-}
\ No newline at end of file
+    private static ServletWebRequest webRequest() {
+        return new ServletWebRequest(new MockHttpServletRequest("GET", "/events/teams"), new MockHttpServletResponse());
+    }
+}
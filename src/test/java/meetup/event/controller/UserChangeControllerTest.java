@@ -0,0 +1,76 @@
+package meetup.event.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import meetup.event.client.UserIdProjection;
+import meetup.event.config.UserClientProperties;
+import meetup.event.dto.user.UserChangeDto;
+import meetup.event.dto.user.UserChangeType;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@EnableConfigurationProperties(UserClientProperties.class)
+@WebMvcTest(controllers = UserChangeController.class, properties = {
+        "app.user-service.projection.enabled=true",
+        "app.user-service.projection.shared-secret=secret"
+})
+class UserChangeControllerTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @MockBean
+    private UserIdProjection userIdProjection;
+
+    private final UserChangeDto deleted = new UserChangeDto(UserChangeType.DELETED, 2L);
+
+    @Test
+    void changesWithSharedSecretShouldBeApplied() throws Exception {
+        mvc.perform(post("/internal/user-changes")
+                        .header(UserChangeController.HEADER_SHARED_SECRET, "secret")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(deleted))))
+                .andExpect(status().isNoContent());
+
+        verify(userIdProjection).apply(deleted);
+    }
+
+    @Test
+    void changesWithoutSharedSecretShouldBeRejected() throws Exception {
+        mvc.perform(post("/internal/user-changes")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(deleted))))
+                .andExpect(status().isForbidden())
+                .andExpect(jsonPath("$.status", is(HttpStatus.FORBIDDEN.value())));
+
+        verify(userIdProjection, never()).apply(any());
+    }
+
+    @Test
+    void changesWithWrongSharedSecretShouldBeRejected() throws Exception {
+        mvc.perform(post("/internal/user-changes")
+                        .header(UserChangeController.HEADER_SHARED_SECRET, "secreT")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(mapper.writeValueAsString(List.of(deleted))))
+                .andExpect(status().isForbidden());
+
+        verify(userIdProjection, never()).apply(any());
+    }
+}
@@ -0,0 +1,103 @@
+package meetup.event.repository;
+
+import jakarta.persistence.EntityManager;
+import meetup.event.model.teammember.TeamMember;
+import meetup.event.model.teammember.TeamMemberId;
+import org.hibernate.cache.spi.CacheImplementor;
+import org.hibernate.cache.spi.TimestampsCache;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class CacheEvictionTest {
+    private final TeamMemberId memberId = new TeamMemberId(1L, 2L);
+
+    @Mock
+    private EntityManager entityManager;
+
+    @Mock
+    private SessionImplementor session;
+
+    @Mock
+    private SessionFactoryImplementor sessionFactory;
+
+    @Mock
+    private CacheImplementor cache;
+
+    @Mock
+    private TimestampsCache timestampsCache;
+
+    @BeforeEach
+    void setUp() {
+        when(entityManager.unwrap(SessionImplementor.class)).thenReturn(session);
+        lenient().when(session.getFactory()).thenReturn(sessionFactory);
+        lenient().when(sessionFactory.getCache()).thenReturn(cache);
+        lenient().when(cache.getTimestampsCache()).thenReturn(timestampsCache);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void evictionShouldWaitForCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        CacheEviction.afterCommit(entityManager, TeamMember.class, List.of(memberId), TeamMember.TABLE_NAME);
+
+        verify(cache, never()).evictEntityData(any(Class.class), any());
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        verify(cache, times(1)).evictEntityData(TeamMember.class, memberId);
+        verify(timestampsCache, times(1)).invalidate(new String[]{TeamMember.TABLE_NAME}, session);
+    }
+
+    @Test
+    void evictionShouldBeSkippedOnRollback() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        CacheEviction.afterCommit(entityManager, TeamMember.class, List.of(memberId), TeamMember.TABLE_NAME);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(
+                        TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verify(cache, never()).evictEntityData(any(Class.class), any());
+    }
+
+    @Test
+    void evictionShouldRunAtOnceOutsideOfTransaction() {
+        CacheEviction.afterCommit(entityManager, TeamMember.class, List.of(memberId));
+
+        verify(cache, times(1)).evictEntityData(TeamMember.class, memberId);
+        verify(timestampsCache, never()).invalidate(any(), eq(session));
+    }
+
+    @Test
+    void evictionShouldNotFailWhenSecondLevelCacheIsDisabled() {
+        when(cache.getTimestampsCache()).thenReturn(null);
+
+        CacheEviction.afterCommit(entityManager, TeamMember.class, List.of(memberId), TeamMember.TABLE_NAME);
+
+        verify(cache, times(1)).evictEntityData(TeamMember.class, memberId);
+    }
+}
@@ -0,0 +1,233 @@
+package meetup.event.repository;
+
+import meetup.event.dto.event.EventCursor;
+import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventTotalMode;
+import meetup.event.model.event.EventRegistrationStatus;
+import meetup.event.repository.teammember.TeamMemberRepository;
+import meetup.event.service.event.EventService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Asks Postgres for the plans of the SQL our repositories actually generate against a seeded table,
+ * so a query change that stops using the indexes fails here instead of in production.
+ */
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = {
+        "app.user-service.url=localhost:0",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector="
+                + "meetup.event.repository.SqlCapturingStatementInspector"
+})
+class QueryPlanTest {
+    private static final int EVENTS = 200_000;
+    private static final int OWNERS = 2_000;
+    private static final Pattern PARAMETER = Pattern.compile("\\?");
+    private static final Pattern TOTAL_COST = Pattern.compile("cost=[\\d.]+\\.\\.([\\d.]+)");
+
+    @Container
+    @ServiceConnection
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.4-alpine");
+
+    private static boolean seeded;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+
+    private final EventCursor cursor = new EventCursor(LocalDateTime.of(2025, 6, 1, 12, 0, 0), 100_000L);
+
+    @BeforeEach
+    void setUp() {
+        if (!seeded) {
+            jdbcTemplate.update("""
+                    INSERT INTO events (name, description, created_date_time, start_date_time, end_date_time,
+                                        location, latitude, longitude, owner_id, participant_limit,
+                                        registration_status)
+                    SELECT 'event ' || n, 'description ' || n, now(),
+                           timestamp '2025-01-01' + n * interval '2 minutes',
+                           timestamp '2025-01-01' + n * interval '2 minutes' + interval '3 hours',
+                           'location', -60 + (n * 7919 % 12000) / 100.0, -180 + (n * 104729 % 36000) / 100.0,
+                           n % ?, 100,
+                           (ARRAY['OPEN', 'OPEN', 'OPEN', 'CLOSED', 'SUSPENDED'])[n % 5 + 1]
+                    FROM generate_series(1, ?) AS n
+                    """, OWNERS, EVENTS);
+            jdbcTemplate.update("""
+                    INSERT INTO team_members (event_id, user_id, role)
+                    SELECT id, id % ? + 1, 'MEMBER' FROM events
+                    """, OWNERS * 10);
+            jdbcTemplate.execute("ANALYZE events");
+            jdbcTemplate.execute("ANALYZE team_members");
+            jdbcTemplate.execute("ANALYZE event_facets");
+            seeded = true;
+        }
+        SqlCapturingStatementInspector.clear();
+    }
+
+    @Test
+    void keysetPageOfAllEventsShouldSeekInStartIndex() {
+        eventService.getEventsAfter(cursor, 20, EventSearchFilter.builder().build());
+
+        assertPlanUses(explainLastSelect(), "idx_events_start_date_time_id");
+    }
+
+    @Test
+    void keysetPageOfOwnerEventsShouldSeekInOwnerIndex() {
+        eventService.getEventsAfter(cursor, 20, EventSearchFilter.builder().userId(7L).build());
+
+        assertPlanUses(explainLastSelect(), "idx_events_owner_id_start_date_time_id");
+    }
+
+    @Test
+    void keysetPageOfOpenEventsShouldSeekInPartialIndex() {
+        eventService.getEventsAfter(cursor, 20, EventSearchFilter.builder()
+                .registrationStatus(EventRegistrationStatus.OPEN)
+                .build());
+
+        assertPlanUses(explainLastSelect(), "idx_events_open_start_date_time_id");
+    }
+
+    @Test
+    void offsetPageOfOwnerEventsShouldNotScanEvents() {
+        eventService.getEvents(3, 20, EventSearchFilter.builder().userId(7L).build());
+
+        assertNoSeqScan(explainLastSelect(), "events");
+    }
+
+    @Test
+    void offsetPageOfSuspendedEventsShouldNotScanEvents() {
+        eventService.getEvents(0, 20, EventSearchFilter.builder()
+                .registrationStatus(EventRegistrationStatus.SUSPENDED)
+                .userId(7L)
+                .build());
+
+        assertNoSeqScan(explainLastSelect(), "events");
+    }
+
+    @Test
+    void exactCountOfOwnerEventsShouldNotScanEvents() {
+        eventService.countEvents(EventSearchFilter.builder().userId(7L).build(),
+                EventTotalMode.EXACT);
+
+        assertNoSeqScan(explainLastSelect(), "events");
+    }
+
+    @Test
+    void textSearchShouldUseSearchVectorIndex() {
+        eventService.getEvents(0, 20, EventSearchFilter.builder().text("\"event 4242\"").build());
+
+        assertPlanUses(explainLastSelect(), "idx_events_search_vector");
+    }
+
+    @Test
+    void upcomingEventsShouldBeReadInStartIndexOrder() {
+        String plan = explain("SELECT id FROM events WHERE start_date_time > $1 ORDER BY start_date_time, id LIMIT 20");
+
+        assertPlanUses(plan, "idx_events_start_date_time_id");
+        assertFalse(plan.contains("Sort"), "Expected no sort:\n" + plan);
+    }
+
+    @Test
+    void pageOfEventsInTimeWindowShouldNotScanEvents() {
+        eventService.getEvents(0, 20, EventSearchFilter.builder()
+                .rangeStart(LocalDateTime.of(2025, 3, 1, 0, 0, 0))
+                .rangeEnd(LocalDateTime.of(2025, 3, 2, 0, 0, 0))
+                .build());
+
+        assertNoSeqScan(explainLastSelect(), "events");
+    }
+
+    @Test
+    void eventsNearPointShouldBePrefilteredInCoordinatesIndex() {
+        eventService.getEvents(0, 20, EventSearchFilter.builder()
+                .latitude(48.85)
+                .longitude(2.35)
+                .radiusKm(25.0)
+                .build());
+
+        assertPlanUses(explainLastSelect(), "idx_events_latitude_longitude");
+    }
+
+    @Test
+    void facetCountsShouldBeReadFromFacetsInsteadOfGroupingEvents() {
+        eventService.getFacets(null, null, 10);
+        String facetsPlan = explainLastSelect();
+        String groupingPlan = explain("""
+                SELECT owner_id, count(*) AS owner_count FROM events
+                GROUP BY owner_id ORDER BY owner_count DESC, owner_id LIMIT 10
+                """);
+
+        assertNoSeqScan(facetsPlan, "events");
+        assertTrue(totalCost(facetsPlan) * 10 < totalCost(groupingPlan),
+                "Expected facets to cost a fraction of grouping events:\n" + facetsPlan + "\n" + groupingPlan);
+    }
+
+    @Test
+    void teamOfEventShouldUsePrimaryKey() {
+        teamMemberRepository.findAllByIdEventId(42L);
+
+        assertNoSeqScan(explainLastSelect(), "team_members");
+    }
+
+    @Test
+    void teamPermissionShouldBeReadByPrimaryKeys() {
+        teamMemberRepository.findPermission(42L, 7L, 8L);
+        String plan = explainLastSelect();
+
+        assertNoSeqScan(plan, "events");
+        assertNoSeqScan(plan, "team_members");
+    }
+
+    @Test
+    void teamMembershipsOfUserShouldUseUserIndex() {
+        String plan = explain("SELECT event_id, role FROM team_members WHERE user_id = $1");
+
+        assertPlanUses(plan, "idx_team_members_user_id");
+    }
+
+    private String explainLastSelect() {
+        Matcher parameters = PARAMETER.matcher(SqlCapturingStatementInspector.lastSelect());
+        AtomicInteger index = new AtomicInteger();
+        return explain(parameters.replaceAll(match -> "\\$" + index.incrementAndGet()));
+    }
+
+    private String explain(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN (GENERIC_PLAN) " + sql, String.class));
+    }
+
+    private double totalCost(String plan) {
+        Matcher cost = TOTAL_COST.matcher(plan);
+        assertTrue(cost.find(), "Expected plan to have a cost:\n" + plan);
+        return Double.parseDouble(cost.group(1));
+    }
+
+    private void assertPlanUses(String plan, String index) {
+        assertTrue(plan.contains(index), "Expected plan to use " + index + ":\n" + plan);
+    }
+
+    private void assertNoSeqScan(String plan, String table) {
+        assertFalse(plan.contains("Seq Scan on " + table), "Expected no sequential scan on " + table + ":\n" + plan);
+    }
+}
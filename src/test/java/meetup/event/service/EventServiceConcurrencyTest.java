@@ -0,0 +1,108 @@
+package meetup.event.service;
+
+import meetup.event.dto.event.UpdatedEventDto;
+import meetup.event.service.event.EventService;
+import meetup.exception.PreconditionFailedException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Updates the same event from several threads without a surrounding test transaction, so every update commits
+ * and races the others for the row.
+ */
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = "app.user-service.url=localhost:0")
+class EventServiceConcurrencyTest {
+    private static final int UPDATES_PER_FIELD = 10;
+
+    @Container
+    @ServiceConnection
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.4-alpine");
+
+    @Autowired
+    private EventService eventService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final Long userId = 1L;
+
+    private Long eventId;
+
+    @BeforeEach
+    void setUp() {
+        eventId = jdbcTemplate.queryForObject("""
+                INSERT INTO events (name, description, created_date_time, start_date_time, end_date_time,
+                                    location, owner_id, participant_limit, registration_status)
+                VALUES ('event', 'description', now(), timestamp '2030-01-01 18:00', timestamp '2030-01-01 22:00',
+                        'location', ?, 10, 'OPEN')
+                RETURNING id
+                """, Long.class, userId);
+    }
+
+    @Test
+    void concurrentUpdatesOfDifferentFieldsShouldAllBeKept() throws Exception {
+        List<IntFunction<UpdatedEventDto>> updates = List.of(
+                i -> UpdatedEventDto.builder().name("name " + i).build(),
+                i -> UpdatedEventDto.builder().description("description " + i).build(),
+                i -> UpdatedEventDto.builder().location("location " + i).build());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(updates.size())) {
+            for (IntFunction<UpdatedEventDto> update : updates) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    for (int i = 1; i <= UPDATES_PER_FIELD; i++) {
+                        eventService.updateEvent(userId, eventId, update.apply(i), null);
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> result : results) {
+                result.get();
+            }
+        }
+
+        Map<String, Object> row = jdbcTemplate.queryForMap(
+                "SELECT name, description, location, version FROM events WHERE id = ?", eventId);
+        assertEquals("name " + UPDATES_PER_FIELD, row.get("name"));
+        assertEquals("description " + UPDATES_PER_FIELD, row.get("description"));
+        assertEquals("location " + UPDATES_PER_FIELD, row.get("location"));
+        assertEquals((long) updates.size() * UPDATES_PER_FIELD, row.get("version"));
+    }
+
+    @Test
+    void updateWithStaleVersionShouldNotOverwriteNewerUpdate() {
+        eventService.updateEvent(userId, eventId, UpdatedEventDto.builder().name("first").build(), 0L);
+
+        assertThrows(PreconditionFailedException.class, () -> eventService.updateEvent(userId, eventId,
+                UpdatedEventDto.builder().name("second").build(), 0L));
+
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT name, version FROM events WHERE id = ?", eventId);
+        assertEquals("first", row.get("name"));
+        assertEquals(1L, row.get("version"));
+    }
+}
@@ -4,15 +4,26 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.dockerjava.zerodep.shaded.org.apache.hc.core5.http.ContentType;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
 import jakarta.transaction.Transactional;
+import meetup.event.dto.event.EventBulkResultDto;
+import meetup.event.dto.event.EventCursor;
+import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
 import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventTotalMode;
 import meetup.event.dto.user.UserDto;
+import meetup.event.dto.event.NewEventDto;
 import meetup.event.dto.event.UpdatedEventDto;
 import meetup.event.mapper.EventMapper;
 import meetup.event.model.event.Event;
+import meetup.event.service.event.EventFacetConsistencyCheck;
 import meetup.event.service.event.EventService;
 import meetup.exception.NotAuthorizedException;
 import meetup.exception.NotFoundException;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Assert;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -21,7 +32,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.TestPropertySource;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
@@ -29,30 +42,41 @@ import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static meetup.event.model.event.EventRegistrationStatus.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @Testcontainers
 @Transactional
 @AutoConfigureWireMock(port = 0)
 @TestPropertySource(properties = {
-        "app.user-service.url=localhost:${wiremock.server.port}"
+        "app.user-service.url=localhost:${wiremock.server.port}",
+        "app.user-service.cache.enabled=false"
 })
 class EventServiceImplTest {
     @Container
     @ServiceConnection
-    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16.4-alpine");
+    // the oldest PostgreSQL the service supports, so every changeset is run against it
+    private static final PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:13.7-alpine");
     @Mock
     private EventMapper eventMapper;
     @Autowired
     private EventService eventService;
+    @Autowired
+    private EventFacetConsistencyCheck eventFacetConsistencyCheck;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+    @PersistenceContext
+    private EntityManager entityManager;
     private ObjectMapper objectMapper;
     private final Long userId = 1L;
     private final Event event = Event.builder()
@@ -178,7 +202,7 @@ class EventServiceImplTest {
 
         Event savedEvent = eventService.createEvent(userId, event);
 
-        Event updatedEvent = eventService.updateEvent(userId, savedEvent.getId(), updatedEventDto);
+        Event updatedEvent = eventService.updateEvent(userId, savedEvent.getId(), updatedEventDto, null);
 
         assertEquals(savedEvent.getId(), updatedEvent.getId());
         assertEquals(savedEvent.getName(), updatedEvent.getName());
@@ -207,7 +231,7 @@ class EventServiceImplTest {
 
         NotFoundException thrown = assertThrows(
                 NotFoundException.class,
-                () -> eventService.updateEvent(userId, eventId, updatedEventDto),
+                () -> eventService.updateEvent(userId, eventId, updatedEventDto, null),
                 ""
         );
 
@@ -229,7 +253,7 @@ class EventServiceImplTest {
 
         NotAuthorizedException thrown = assertThrows(
                 NotAuthorizedException.class,
-                () -> eventService.updateEvent(otherUserId, savedEvent.getId(), updatedEventDto),
+                () -> eventService.updateEvent(otherUserId, savedEvent.getId(), updatedEventDto, null),
                 ""
         );
 
@@ -250,7 +274,7 @@ class EventServiceImplTest {
 
         DateTimeException thrown = assertThrows(
                 DateTimeException.class,
-                () -> eventService.updateEvent(userId, savedEvent.getId(), updatedEventDto),
+                () -> eventService.updateEvent(userId, savedEvent.getId(), updatedEventDto, null),
                 ""
         );
 
@@ -343,13 +367,13 @@ class EventServiceImplTest {
 
         eventService.createEvent(otherUserId, additionalEvent);
 
-        List<Event> eventList = eventService.getEvents(0, 10, eventSearchFilter);
+        List<EventDto> eventList = eventService.getEvents(0, 10, eventSearchFilter).getContent();
 
         assertEquals(eventList.size(), 2);
-        assertEquals(eventList.getFirst().getOwnerId(), userId);
-        assertEquals(eventList.getFirst().getRegistrationStatus(), OPEN);
-        assertEquals(eventList.getLast().getOwnerId(), userId);
-        assertEquals(eventList.getLast().getRegistrationStatus(), OPEN);
+        assertEquals(eventList.getFirst().ownerId(), userId);
+        assertEquals(eventList.getFirst().registrationStatus(), OPEN);
+        assertEquals(eventList.getLast().ownerId(), userId);
+        assertEquals(eventList.getLast().registrationStatus(), OPEN);
     }
 
     @Test
@@ -379,13 +403,70 @@ class EventServiceImplTest {
 
         eventService.createEvent(otherUserId, eventNumberThree);
 
-        List<Event> eventList = eventService.getEvents(0, 10, filter);
+        List<EventDto> eventList = eventService.getEvents(0, 10, filter).getContent();
 
         assertEquals(eventList.size(), 2);
-        assertEquals(eventList.getFirst().getOwnerId(), userId);
-        assertEquals(eventList.getFirst().getRegistrationStatus(), OPEN);
-        assertEquals(eventList.getLast().getOwnerId(), userId);
-        assertEquals(eventList.getLast().getRegistrationStatus(), SUSPENDED);
+        assertEquals(eventList.getFirst().ownerId(), userId);
+        assertEquals(eventList.getFirst().registrationStatus(), OPEN);
+        assertEquals(eventList.getLast().ownerId(), userId);
+        assertEquals(eventList.getLast().registrationStatus(), SUSPENDED);
+    }
+
+    @Test
+    void getEventsAfterCursorShouldPageThroughEventsInStartOrder() throws JsonProcessingException {
+        EventSearchFilter filter = EventSearchFilter.builder()
+                .userId(userId)
+                .build();
+
+        UserDto userDto = createUser(userId);
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(userDto))
+                        .withStatus(HttpStatus.OK.value())));
+
+        eventService.createEvent(userId, eventNumberThree);
+        eventService.createEvent(userId, event);
+        eventService.createEvent(userId, eventNumberTwo);
+
+        Slice<EventDto> firstPage = eventService.getEventsAfter(null, 2, filter);
+        Slice<EventDto> secondPage = eventService.getEventsAfter(EventCursor.of(firstPage.getContent().getLast()),
+                2, filter);
+
+        assertTrue(firstPage.hasNext());
+        assertEquals(List.of(event.getName(), eventNumberTwo.getName()),
+                firstPage.getContent().stream().map(EventDto::name).toList());
+        assertFalse(secondPage.hasNext());
+        assertEquals(List.of(eventNumberThree.getName()),
+                secondPage.getContent().stream().map(EventDto::name).toList());
+    }
+
+    @Test
+    void getEventsShouldDetectNextPageAndCountEventsOnRequest() throws JsonProcessingException {
+        EventSearchFilter filter = EventSearchFilter.builder()
+                .userId(userId)
+                .build();
+
+        UserDto userDto = createUser(userId);
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(userDto))
+                        .withStatus(HttpStatus.OK.value())));
+
+        eventService.createEvent(userId, event);
+        eventService.createEvent(userId, eventNumberTwo);
+        eventService.createEvent(userId, eventNumberThree);
+
+        Slice<EventDto> firstPage = eventService.getEvents(0, 2, filter);
+        Slice<EventDto> lastPage = eventService.getEvents(1, 2, filter);
+
+        assertEquals(2, firstPage.getNumberOfElements());
+        assertTrue(firstPage.hasNext());
+        assertEquals(1, lastPage.getNumberOfElements());
+        assertFalse(lastPage.hasNext());
+        assertEquals(3, eventService.countEvents(filter, EventTotalMode.EXACT));
+        assertTrue(eventService.countEvents(filter, EventTotalMode.ESTIMATE) >= 0);
     }
 
     @Test
@@ -415,13 +496,13 @@ class EventServiceImplTest {
 
         eventService.createEvent(otherUserId, eventNumberThree);
 
-        List<Event> eventList = eventService.getEvents(0, 10, filter);
+        List<EventDto> eventList = eventService.getEvents(0, 10, filter).getContent();
 
         assertEquals(eventList.size(), 2);
-        assertEquals(eventList.getFirst().getOwnerId(), userId);
-        assertEquals(eventList.getFirst().getRegistrationStatus(), OPEN);
-        assertEquals(eventList.getLast().getOwnerId(), otherUserId);
-        assertEquals(eventList.getLast().getRegistrationStatus(), OPEN);
+        assertEquals(eventList.getFirst().ownerId(), userId);
+        assertEquals(eventList.getFirst().registrationStatus(), OPEN);
+        assertEquals(eventList.getLast().ownerId(), otherUserId);
+        assertEquals(eventList.getLast().registrationStatus(), OPEN);
     }
 
     @Test
@@ -450,15 +531,203 @@ class EventServiceImplTest {
 
         eventService.createEvent(otherUserId, eventNumberThree);
 
-        List<Event> eventList = eventService.getEvents(0, 10, filter);
+        List<EventDto> eventList = eventService.getEvents(0, 10, filter).getContent();
 
         assertEquals(eventList.size(), 3);
-        assertEquals(eventList.getFirst().getOwnerId(), userId);
-        assertEquals(eventList.getFirst().getRegistrationStatus(), OPEN);
-        assertEquals(eventList.get(1).getOwnerId(), userId);
-        assertEquals(eventList.get(1).getRegistrationStatus(), SUSPENDED);
-        assertEquals(eventList.getLast().getOwnerId(), otherUserId);
-        assertEquals(eventList.getLast().getRegistrationStatus(), OPEN);
+        assertEquals(eventList.getFirst().ownerId(), userId);
+        assertEquals(eventList.getFirst().registrationStatus(), OPEN);
+        assertEquals(eventList.get(1).ownerId(), userId);
+        assertEquals(eventList.get(1).registrationStatus(), SUSPENDED);
+        assertEquals(eventList.getLast().ownerId(), otherUserId);
+        assertEquals(eventList.getLast().registrationStatus(), OPEN);
+    }
+
+    @Test
+    void getEventsWithTextShouldReturnBestMatchesFirst() throws JsonProcessingException {
+        UserDto userDto = createUser(userId);
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(userDto))
+                        .withStatus(HttpStatus.OK.value())));
+
+        event.setName("Board games night");
+        event.setDescription("Chess and go");
+        eventNumberTwo.setName("Chess tournament");
+        eventNumberTwo.setDescription("Rapid chess");
+        eventNumberThree.setName("Jazz concert");
+        eventService.createEvent(userId, event);
+        eventService.createEvent(userId, eventNumberTwo);
+        eventService.createEvent(userId, eventNumberThree);
+
+        List<EventDto> found = eventService.getEvents(0, 10, EventSearchFilter.builder()
+                .text("chess")
+                .build()).getContent();
+
+        assertEquals(List.of("Chess tournament", "Board games night"), found.stream().map(EventDto::name).toList());
+        assertEquals(2, eventService.countEvents(EventSearchFilter.builder().text("chess").build(),
+                EventTotalMode.EXACT));
+    }
+
+    @Test
+    void getEventsInTimeWindowShouldReturnOverlappingEventsInStartOrder() throws JsonProcessingException {
+        UserDto userDto = createUser(userId);
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(userDto))
+                        .withStatus(HttpStatus.OK.value())));
+
+        event.setStartDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0));
+        event.setEndDateTime(LocalDateTime.of(2024, 12, 26, 22, 0, 0));
+        eventNumberTwo.setStartDateTime(LocalDateTime.of(2024, 12, 25, 20, 0, 0));
+        eventNumberTwo.setEndDateTime(LocalDateTime.of(2024, 12, 26, 2, 0, 0));
+        eventNumberThree.setStartDateTime(LocalDateTime.of(2024, 12, 28, 18, 0, 0));
+        eventNumberThree.setEndDateTime(LocalDateTime.of(2024, 12, 28, 22, 0, 0));
+        eventService.createEvent(userId, event);
+        eventService.createEvent(userId, eventNumberTwo);
+        eventService.createEvent(userId, eventNumberThree);
+
+        List<EventDto> found = eventService.getEvents(0, 10, EventSearchFilter.builder()
+                .rangeStart(LocalDateTime.of(2024, 12, 26, 0, 0, 0))
+                .rangeEnd(LocalDateTime.of(2024, 12, 27, 0, 0, 0))
+                .build()).getContent();
+
+        assertEquals(List.of(eventNumberTwo.getName(), event.getName()), found.stream().map(EventDto::name).toList());
+    }
+
+    @Test
+    void getEventsNearPointShouldReturnEventsWithinRadius() throws JsonProcessingException {
+        UserDto userDto = createUser(userId);
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(userDto))
+                        .withStatus(HttpStatus.OK.value())));
+
+        // Red Square, Moscow
+        event.setLatitude(55.7539);
+        event.setLongitude(37.6208);
+        // Tverskaya Zastava, about 3.6 km from Red Square
+        eventNumberTwo.setLatitude(55.7765);
+        eventNumberTwo.setLongitude(37.5817);
+        // Saint Petersburg
+        eventNumberThree.setLatitude(59.9386);
+        eventNumberThree.setLongitude(30.3141);
+        eventService.createEvent(userId, event);
+        eventService.createEvent(userId, eventNumberTwo);
+        eventService.createEvent(userId, eventNumberThree);
+
+        EventSearchFilter nearRedSquare = EventSearchFilter.builder()
+                .latitude(55.7539)
+                .longitude(37.6208)
+                .radiusKm(3.0)
+                .build();
+        EventSearchFilter inMoscow = EventSearchFilter.builder()
+                .latitude(55.7539)
+                .longitude(37.6208)
+                .radiusKm(10.0)
+                .build();
+
+        assertEquals(List.of(event.getName()),
+                eventService.getEvents(0, 10, nearRedSquare).getContent().stream().map(EventDto::name).toList());
+        assertEquals(2, eventService.getEvents(0, 10, inMoscow).getNumberOfElements());
+        assertEquals(2, eventService.countEvents(inMoscow, EventTotalMode.EXACT));
+    }
+
+    @Test
+    void exportEventsShouldStreamMatchingEventsInIdOrder() throws JsonProcessingException {
+        long otherUserId = 2L;
+
+        UserDto userDto = createUser(userId);
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(userDto))
+                        .withStatus(HttpStatus.OK.value())));
+        UserDto otherUserDto = createUser(otherUserId);
+        stubFor(get(urlEqualTo("/users/" + otherUserId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(otherUserDto))
+                        .withStatus(HttpStatus.OK.value())));
+
+        Event first = eventService.createEvent(userId, event);
+        eventService.createEvent(otherUserId, eventNumberTwo);
+        Event third = eventService.createEvent(userId, eventNumberThree);
+        List<EventDto> exported = new ArrayList<>();
+
+        eventService.exportEvents(EventSearchFilter.builder().userId(userId).build(), exported::add);
+
+        assertEquals(List.of(first.getId(), third.getId()), exported.stream().map(EventDto::id).toList());
+    }
+
+    @Test
+    void createEventsShouldInsertInBatches() throws JsonProcessingException {
+        int events = 120;
+        stubUser(userId);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        List<NewEventDto> newEventDtos = new ArrayList<>();
+        for (int i = 0; i < events; i++) {
+            newEventDtos.add(NewEventDto.builder()
+                    .name("session " + i)
+                    .description("session description")
+                    .startDateTime(start.plusHours(i))
+                    .endDateTime(start.plusHours(i + 1))
+                    .location("hall")
+                    .registrationStatus(OPEN)
+                    .build());
+        }
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<EventBulkResultDto> results = eventService.createEvents(userId, newEventDtos);
+        entityManager.flush();
+
+        assertTrue(results.stream().allMatch(result -> result.event() != null));
+        assertEquals(events, statistics.getEntityInsertCount());
+        // three batches of inserts and a few sequence calls instead of one statement per event
+        assertTrue(statistics.getPrepareStatementCount() < events / 10,
+                "Expected batched inserts, prepared " + statistics.getPrepareStatementCount() + " statements");
+        verify(1, getRequestedFor(urlEqualTo("/users/" + userId)));
+    }
+
+    @Test
+    void facetsShouldFollowCreatedUpdatedAndDeletedEvents() throws JsonProcessingException {
+        long otherUserId = 2L;
+        stubUser(userId);
+        stubUser(otherUserId);
+
+        Event first = eventService.createEvent(userId, event);
+        Event second = eventService.createEvent(userId, eventNumberThree);
+        eventService.createEvent(otherUserId, eventNumberTwo);
+        eventService.updateEvent(userId, first.getId(), updatedEventDto, null);
+        eventService.deleteEventById(userId, second.getId());
+
+        EventFacetsDto facets = eventService.getFacets(null, null, 10);
+
+        assertEquals(2, facets.total());
+        assertEquals(List.of(new EventFacetsDto.RegistrationStatusCount(CLOSED, 1),
+                        new EventFacetsDto.RegistrationStatusCount(SUSPENDED, 1)),
+                facets.registrationStatuses());
+        assertEquals(List.of(new EventFacetsDto.OwnerCount(userId, 1), new EventFacetsDto.OwnerCount(otherUserId, 1)),
+                facets.owners());
+        assertEquals(1, eventService.getFacets(otherUserId, SUSPENDED, 10).total());
+        assertEquals(0, eventService.getFacets(userId, OPEN, 10).total());
+    }
+
+    @Test
+    void facetConsistencyCheckShouldRepairDriftedFacets() throws JsonProcessingException {
+        stubUser(userId);
+        eventService.createEvent(userId, event);
+        eventService.createEvent(userId, eventNumberThree);
+        jdbcTemplate.update("UPDATE event_facets SET event_count = 7 WHERE owner_id = ?", userId);
+        jdbcTemplate.update("INSERT INTO event_facets (owner_id, registration_status, event_count) VALUES (?, ?, 3)",
+                42L, CLOSED.name());
+
+        assertEquals(2, eventFacetConsistencyCheck.check());
+        assertEquals(0, eventFacetConsistencyCheck.check());
+        assertEquals(List.of(new EventFacetsDto.OwnerCount(userId, 2)), eventService.getFacets(null, null, 10).owners());
     }
 
     @Test
@@ -483,6 +752,27 @@ class EventServiceImplTest {
         assertEquals("Event with id=" + savedEvent.getId() + " was not found", thrown.getMessage());
     }
 
+    @Test
+    void deleteEventWithLargeTeamShouldTakeOneStatement() throws JsonProcessingException {
+        int teamSize = 10_000;
+        stubUser(userId);
+        Event savedEvent = eventService.createEvent(userId, event);
+        entityManager.flush();
+        jdbcTemplate.update("""
+                INSERT INTO team_members (event_id, user_id, role)
+                SELECT ?, n, 'MEMBER' FROM generate_series(1, ?) AS n
+                """, savedEvent.getId(), teamSize);
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        eventService.deleteEventById(userId, savedEvent.getId());
+
+        // no reads of the event before the delete, and the team goes with it in the same statement
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT count(*) FROM team_members WHERE event_id = ?",
+                Long.class, savedEvent.getId()));
+    }
+
     @Test
     void deleteNonExistEvent() {
         Long eventId = 777L;
@@ -518,6 +808,14 @@ class EventServiceImplTest {
         assertEquals("User id=777 is not the owner of the event id=" + savedEvent.getId(), thrown.getMessage());
     }
 
+    private void stubUser(long userId) throws JsonProcessingException {
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(createUser(userId)))
+                        .withStatus(HttpStatus.OK.value())));
+    }
+
     private UserDto createUser(long userId) {
         return new UserDto(
                 userId,
@@ -1,15 +1,30 @@
 package meetup.event.service;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
 import meetup.event.client.UserClient;
+import meetup.event.client.UserIdProjection;
+import meetup.event.dto.event.EventBulkResultDto;
+import meetup.event.dto.event.EventCursor;
+import meetup.event.dto.event.EventDto;
+import meetup.event.dto.event.EventFacetsDto;
 import meetup.event.dto.event.EventSearchFilter;
+import meetup.event.dto.event.EventTotalMode;
+import meetup.event.dto.event.EventUpdateResult;
+import meetup.event.dto.event.EventWriteOutcome;
 import meetup.event.dto.user.UserDto;
+import meetup.event.dto.event.NewEventDto;
 import meetup.event.dto.event.UpdatedEventDto;
 import meetup.event.mapper.EventMapper;
 import meetup.event.model.event.Event;
+import meetup.event.model.event.EventRegistrationStatus;
 import meetup.event.repository.event.EventRepository;
+import meetup.event.service.event.EventFacetConsistencyCheck;
 import meetup.event.service.event.EventServiceImpl;
 import meetup.exception.NotAuthorizedException;
 import meetup.exception.NotFoundException;
+import meetup.exception.PreconditionFailedException;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
@@ -17,22 +32,37 @@ import org.mockito.Captor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
 import org.springframework.data.jpa.domain.Specification;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.DateTimeException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.Mockito.doNothing;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -46,9 +76,14 @@ class EventServiceImplUnitTest {
     @Mock
     private UserClient userClient;
 
+    @Mock
+    private UserIdProjection userIdProjection;
+
     @InjectMocks
     private EventServiceImpl service;
 
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+
     private final Event event = Event.builder()
             .id(null)
             .name("event")
@@ -87,69 +122,248 @@ class EventServiceImplUnitTest {
         verify(repository, times(1)).save(eventToSave);
     }
 
+    @Test
+    void createEventsShouldCheckOwnerOnceAndRejectInvalidEvents() {
+        EventServiceImpl bulkService = new EventServiceImpl(repository, mapper, userClient, userIdProjection,
+                Executors.newVirtualThreadPerTaskExecutor(), validator);
+        LocalDateTime start = LocalDateTime.now().plusDays(1);
+        NewEventDto blankName = newEventDto(" ", start, start.plusHours(2));
+        NewEventDto valid = newEventDto("event", start, start.plusHours(2));
+        NewEventDto endsBeforeStart = newEventDto("event", start, start.minusHours(1));
+        Event mapped = Event.builder().name("event").build();
+        EventDto saved = EventDto.builder().id(11L).build();
+        when(userClient.getUserById(userId, userId))
+                .thenReturn(createUser(userId));
+        when(mapper.toEventFromNewEventDto(valid))
+                .thenReturn(mapped);
+        when(repository.saveAll(List.of(mapped)))
+                .thenReturn(List.of(mapped));
+        when(mapper.toEventDto(mapped))
+                .thenReturn(saved);
+
+        List<EventBulkResultDto> results = bulkService.createEvents(userId, List.of(blankName, valid, endsBeforeStart));
+
+        assertThat(results.get(0), is(EventBulkResultDto.rejected(0, List.of("Name can not be blank"))));
+        assertThat(results.get(1), is(EventBulkResultDto.created(1, saved)));
+        assertThat(results.get(2).event(), is((EventDto) null));
+        assertThat(results.get(2).errors().size(), is(1));
+        assertThat(mapped.getOwnerId(), is(userId));
+        verify(userClient, times(1)).getUserById(userId, userId);
+    }
+
+    @Test
+    void createEventShouldCheckOwnerInFreshUserIdProjection() {
+        when(userIdProjection.isFresh())
+                .thenReturn(true);
+        when(userIdProjection.contains(userId))
+                .thenReturn(false);
+
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> service.createEvent(userId, event));
+
+        assertThat(ex.getMessage(), is("User was not found"));
+        verify(userClient, never()).getUserById(any(), any());
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void createEventShouldCheckOwnerWhileInsertingEvent() {
+        EventServiceImpl overlappingService = createOverlappingService();
+        CountDownLatch lookupStarted = new CountDownLatch(1);
+        CountDownLatch insertStarted = new CountDownLatch(1);
+
+        // each side waits for the other to start, which only happens when they run at the same time
+        when(userClient.getUserById(userId, userId)).thenAnswer(invocation -> {
+            lookupStarted.countDown();
+            assertTrue(insertStarted.await(5, TimeUnit.SECONDS), "Insert did not start during the owner lookup");
+            return createUser(userId);
+        });
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> {
+            insertStarted.countDown();
+            assertTrue(lookupStarted.await(5, TimeUnit.SECONDS), "Owner lookup did not start during the insert");
+            return event;
+        });
+
+        overlappingService.createEvent(userId, event);
+
+        assertThat(event.getOwnerId(), is(userId));
+    }
+
+    @Test
+    void createEventShouldInsertBeforeOwnerCheckCompletes() {
+        EventServiceImpl overlappingService = createOverlappingService();
+        CountDownLatch inserted = new CountDownLatch(1);
+
+        when(userClient.getUserById(userId, userId)).thenAnswer(invocation -> {
+            assertTrue(inserted.await(5, TimeUnit.SECONDS), "Event was not inserted during the owner lookup");
+            return createUser(userId);
+        });
+        when(repository.saveAndFlush(any())).thenAnswer(invocation -> {
+            inserted.countDown();
+            return event;
+        });
+
+        overlappingService.createEvent(userId, event);
+
+        // a plain save would leave the INSERT until the commit, after the owner check
+        verify(repository, never()).save(any());
+    }
+
+    @Test
+    void createEventShouldFailAfterInsertWhenOwnerIsMissing() {
+        EventServiceImpl overlappingService = createOverlappingService();
+
+        when(userClient.getUserById(userId, userId))
+                .thenThrow(new NotFoundException("User was not found"));
+        when(repository.saveAndFlush(any()))
+                .thenReturn(event);
+
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> overlappingService.createEvent(userId, event));
+
+        assertThat(ex.getMessage(), is("User was not found"));
+    }
+
+    @Test
+    void createEventWithWrongDatesShouldReportMissingOwnerFirst() {
+        EventServiceImpl overlappingService = createOverlappingService();
+        Event eventWithWrongDates = Event.builder()
+                .name("event")
+                .startDateTime(LocalDateTime.of(2024, 12, 26, 22, 0, 0))
+                .endDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
+                .build();
+
+        when(userClient.getUserById(userId, userId))
+                .thenThrow(new NotFoundException("User was not found"));
+
+        assertThrows(NotFoundException.class, () -> overlappingService.createEvent(userId, eventWithWrongDates));
+
+        verify(repository, never()).saveAndFlush(any());
+    }
+
     @Test
     void updateEvent() {
         UpdatedEventDto updatedEventDto = UpdatedEventDto.builder()
-                .name(null)
                 .description("updated description")
-                .startDateTime(null)
                 .endDateTime(LocalDateTime.of(2024, 12, 26, 23, 0, 0))
                 .build();
+        Event updated = event.toBuilder().id(eventId).description("updated description").build();
+        when(repository.updatePartially(eq(eventId), eq(userId), eq(updatedEventDto), any(), isNull()))
+                .thenReturn(new EventUpdateResult(EventWriteOutcome.APPLIED, updated, 0L,
+                        updated.getStartDateTime(), updated.getEndDateTime()));
 
-        when(repository.findById(eventId))
-                .thenReturn(Optional.of(event));
-        doNothing().when(mapper).updateEvent(updatedEventDto, event);
-        when(repository.save(event))
-                .thenReturn(event);
-        event.setOwnerId(userId);
+        Event result = service.updateEvent(userId, eventId, updatedEventDto, null);
 
-        service.updateEvent(eventId, userId, updatedEventDto);
+        assertThat(result, is(updated));
+        verify(repository, never()).findById(any());
+        verify(repository, never()).save(any());
+    }
 
-        verify(repository, times(1)).findById(eventId);
-        verify(mapper, times(1)).updateEvent(updatedEventDto, event);
-        verify(repository, times(1)).save(event);
+    @Test
+    void updateEventWithStaleVersionShouldNotApplyUpdate() {
+        UpdatedEventDto updatedEventDto = UpdatedEventDto.builder()
+                .description("updated description")
+                .build();
+        when(repository.updatePartially(eq(eventId), eq(userId), eq(updatedEventDto), any(), eq(3L)))
+                .thenReturn(new EventUpdateResult(EventWriteOutcome.STALE_VERSION, null, 4L,
+                        event.getStartDateTime(), event.getEndDateTime()));
+
+        PreconditionFailedException ex = assertThrows(PreconditionFailedException.class,
+                () -> service.updateEvent(userId, eventId, updatedEventDto, 3L));
+
+        assertThat(ex.getMessage(), is("Event with id=" + eventId + " has version 4, not 3"));
+    }
+
+    @Test
+    void updateEventEndingBeforeItStarts() {
+        UpdatedEventDto updatedEventDto = UpdatedEventDto.builder()
+                .endDateTime(LocalDateTime.of(2024, 12, 26, 17, 0, 0))
+                .build();
+        when(repository.updatePartially(eq(eventId), eq(userId), eq(updatedEventDto), any(), isNull()))
+                .thenReturn(new EventUpdateResult(EventWriteOutcome.END_BEFORE_START, null, 0L,
+                        event.getStartDateTime(), updatedEventDto.endDateTime()));
+
+        DateTimeException ex = assertThrows(DateTimeException.class,
+                () -> service.updateEvent(userId, eventId, updatedEventDto, null));
+
+        assertThat(ex.getMessage(), is("End dateTime: " + updatedEventDto.endDateTime()
+                + " is befofe start dateTime: " + event.getStartDateTime()));
+    }
+
+    @Test
+    void getEventVersionOfNonExistEvent() {
+        when(repository.findVersionById(eventId))
+                .thenReturn(Optional.empty());
+
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> service.getEventVersion(eventId));
+
+        assertThat(ex.getMessage(), is("Event with id=" + eventId + " was not found"));
+    }
+
+    @Test
+    void markTeamUpdated() {
+        when(repository.markTeamUpdated(eq(eventId), any()))
+                .thenReturn(true);
+
+        service.markTeamUpdated(eventId);
+
+        verify(repository, never()).findById(any());
+    }
+
+    @Test
+    void markTeamUpdatedOfNonExistEvent() {
+        when(repository.markTeamUpdated(eq(eventId), any()))
+                .thenReturn(false);
+
+        NotFoundException ex = assertThrows(NotFoundException.class,
+                () -> service.markTeamUpdated(eventId));
+
+        assertThat(ex.getMessage(), is("Event with id=" + eventId + " was not found"));
+    }
+
+    @Test
+    void checkSearchFilterWithRangeEndBeforeStart() {
+        EventSearchFilter filter = EventSearchFilter.builder()
+                .rangeStart(LocalDateTime.of(2024, 12, 26, 0, 0))
+                .rangeEnd(LocalDateTime.of(2024, 12, 25, 0, 0))
+                .build();
+
+        DateTimeException ex = assertThrows(DateTimeException.class, () -> service.checkSearchFilter(filter));
+
+        assertThat(ex.getMessage(), is("Range end: 2024-12-25T00:00 is before range start: 2024-12-26T00:00"));
+        verifyNoInteractions(repository);
     }
 
     @Test
     void updateEventByOtherUser() {
         UpdatedEventDto updatedEventDto = UpdatedEventDto.builder()
-                .name(null)
                 .description("updated description")
-                .startDateTime(null)
                 .endDateTime(LocalDateTime.of(2024, 12, 26, 23, 0, 0))
                 .build();
-
-        when(repository.findById(eventId))
-                .thenReturn(Optional.of(event));
+        when(repository.updatePartially(eq(eventId), eq(userId), eq(updatedEventDto), any(), isNull()))
+                .thenReturn(new EventUpdateResult(EventWriteOutcome.NOT_OWNER, null, 0L,
+                        event.getStartDateTime(), updatedEventDto.endDateTime()));
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> service.updateEvent(eventId, userId, updatedEventDto));
-
-        assertThat(ex.getMessage(), is("User id=" + userId + " is not the owner of the event id=" + event.getId()));
+                () -> service.updateEvent(userId, eventId, updatedEventDto, null));
 
-        verify(repository, times(1)).findById(eventId);
-        verify(mapper, never()).updateEvent(any(), any());
-        verify(repository, never()).save(any());
+        assertThat(ex.getMessage(), is("User id=" + userId + " is not the owner of the event id=" + eventId));
     }
 
     @Test
     void updateNonExistEvent() {
         UpdatedEventDto updatedEventDto = UpdatedEventDto.builder()
-                .name(null)
                 .description("updated description")
-                .startDateTime(null)
                 .endDateTime(LocalDateTime.of(2024, 12, 26, 23, 0, 0))
                 .build();
-
-        when(repository.findById(eventId))
-                .thenReturn(Optional.empty());
+        when(repository.updatePartially(eq(eventId), eq(userId), eq(updatedEventDto), any(), isNull()))
+                .thenReturn(new EventUpdateResult(EventWriteOutcome.NOT_FOUND, null, null, null, null));
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> service.updateEvent(eventId, userId, updatedEventDto));
+                () -> service.updateEvent(userId, eventId, updatedEventDto, null));
 
-        verify(repository, times(1)).findById(eventId);
-        verify(mapper, never()).updateEvent(any(), any());
-        verify(repository, never()).save(any());
+        assertThat(ex.getMessage(), is("Event with id=" + eventId + " was not found"));
     }
 
     @Test
@@ -162,6 +376,22 @@ class EventServiceImplUnitTest {
         verify(repository, times(1)).findById(eventId);
     }
 
+    @Test
+    void getEventByEventIdByOtherUserShouldNotChangeLoadedEvent() {
+        Event storedEvent = event.toBuilder()
+                .ownerId(userId)
+                .createdDateTime(LocalDateTime.of(2024, 12, 1, 12, 0, 0))
+                .build();
+
+        when(repository.findById(eventId))
+                .thenReturn(Optional.of(storedEvent));
+
+        Event receivedEvent = service.getEventByEventId(eventId, 777L);
+
+        assertThat(receivedEvent.getCreatedDateTime(), is((LocalDateTime) null));
+        assertThat(storedEvent.getCreatedDateTime(), is(LocalDateTime.of(2024, 12, 1, 12, 0, 0)));
+    }
+
     @Test
     void getNonExistEventByEventId() {
         when(repository.findById(eventId))
@@ -183,51 +413,171 @@ class EventServiceImplUnitTest {
         Specification<Event> spec = null;
         Pageable pageable = PageRequest.of(page, size);
 
-        when(repository.findAll(spec, pageable))
-                .thenReturn(Page.empty());
+        when(repository.findDtoSlice(spec, pageable))
+                .thenReturn(new SliceImpl<>(List.of()));
 
         service.getEvents(page, size, filter);
 
-        verify(repository, times(1)).findAll(spec, PageRequest.of(page, size));
+        verify(repository, times(1)).findDtoSlice(spec, PageRequest.of(page, size));
+        verify(repository, never()).count(any(Specification.class));
     }
 
     @Test
-    void deleteEventById() {
-        event.setOwnerId(userId);
+    void getEventsWithTextShouldOrderEventsByRelevance() {
+        EventSearchFilter filter = EventSearchFilter.builder().text("jazz").build();
 
-        when(repository.findById(eventId))
-                .thenReturn(Optional.of(event));
+        when(repository.findDtoSliceByRelevance(any(), eq("jazz"), eq(PageRequest.of(0, 10))))
+                .thenReturn(new SliceImpl<>(List.of()));
+
+        service.getEvents(0, 10, filter);
+
+        verify(repository, times(1)).findDtoSliceByRelevance(any(), eq("jazz"), eq(PageRequest.of(0, 10)));
+        verify(repository, never()).findDtoSlice(any(), any());
+    }
+
+    @Test
+    void getUpcomingEventsShouldOrderEventsByStartAndId() {
+        EventSearchFilter filter = EventSearchFilter.builder().upcoming(true).build();
+
+        when(repository.findDtoSlice(any(), eq(PageRequest.of(0, 10, Sort.by("startDateTime", "id")))))
+                .thenReturn(new SliceImpl<>(List.of()));
 
-        service.deleteEventById(eventId, userId);
+        service.getEvents(0, 10, filter);
 
-        verify(repository, times(1)).deleteById(eventId);
+        verify(repository, times(1)).findDtoSlice(any(), eq(PageRequest.of(0, 10, Sort.by("startDateTime", "id"))));
+    }
+
+    @Test
+    void getEventsWithRangeEndBeforeRangeStart() {
+        EventSearchFilter filter = EventSearchFilter.builder()
+                .rangeStart(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
+                .rangeEnd(LocalDateTime.of(2024, 12, 25, 18, 0, 0))
+                .build();
+
+        DateTimeException ex = assertThrows(DateTimeException.class,
+                () -> service.getEvents(0, 10, filter));
+
+        assertThat(ex.getMessage(), is("Range end: 2024-12-25T18:00 is before range start: 2024-12-26T18:00"));
+        verify(repository, never()).findDtoSlice(any(), any());
+    }
+
+    @Test
+    void getEventsAfterShouldOrderEventsByStartAndId() {
+        EventSearchFilter filter = EventSearchFilter.builder().build();
+        EventCursor cursor = new EventCursor(LocalDateTime.of(2024, 12, 25, 18, 0, 0), 3L);
+        Slice<EventDto> slice = new SliceImpl<>(List.of(EventDto.builder().id(4L).build()), PageRequest.of(0, 1),
+                true);
+
+        when(repository.findDtoSlice(any(), eq(PageRequest.of(0, 1, Sort.by("startDateTime", "id")))))
+                .thenReturn(slice);
+
+        Slice<EventDto> events = service.getEventsAfter(cursor, 1, filter);
+
+        assertThat(events, is(slice));
+    }
+
+    @Test
+    void countEventsShouldUsePlannerEstimate() {
+        EventSearchFilter filter = EventSearchFilter.builder().userId(userId).build();
+
+        when(repository.estimateCount(filter))
+                .thenReturn(1000L);
+
+        assertThat(service.countEvents(filter, EventTotalMode.ESTIMATE), is(1000L));
+        verify(repository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void countEventsShouldCountExactlyWithoutPlannerStatistics() {
+        EventSearchFilter filter = EventSearchFilter.builder().userId(userId).build();
+
+        when(repository.estimateCount(filter))
+                .thenReturn(-1L);
+        when(repository.count(any(Specification.class)))
+                .thenReturn(3L);
+
+        assertThat(service.countEvents(filter, EventTotalMode.ESTIMATE), is(3L));
+    }
+
+    @Test
+    void getFacetsShouldSumRegistrationStatusCountsIntoTotal() {
+        List<EventFacetsDto.RegistrationStatusCount> registrationStatuses = List.of(
+                new EventFacetsDto.RegistrationStatusCount(EventRegistrationStatus.OPEN, 3),
+                new EventFacetsDto.RegistrationStatusCount(EventRegistrationStatus.CLOSED, 2));
+        List<EventFacetsDto.OwnerCount> owners = List.of(new EventFacetsDto.OwnerCount(userId, 5));
+        when(repository.countByRegistrationStatusFacet(userId, null))
+                .thenReturn(registrationStatuses);
+        when(repository.countByOwnerFacet(userId, null, 10))
+                .thenReturn(owners);
+
+        EventFacetsDto facets = service.getFacets(userId, null, 10);
+
+        assertThat(facets, is(new EventFacetsDto(5, registrationStatuses, owners)));
+        verify(repository, never()).count(any(Specification.class));
+    }
+
+    @Test
+    void facetConsistencyCheckShouldRepairOnlyWhenFacetsDiffer() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        EventFacetConsistencyCheck check = new EventFacetConsistencyCheck(repository, meterRegistry);
+        when(repository.countFacetMismatches())
+                .thenReturn(0L, 2L);
+        when(repository.repairFacets())
+                .thenReturn(2L);
+
+        assertThat(check.check(), is(0L));
+        verify(repository, never()).repairFacets();
+
+        assertThat(check.check(), is(2L));
+        assertThat(meterRegistry.get("events.facets.repaired").counter().count(), is(2.0));
+    }
+
+    @Test
+    void exportEventsShouldPassEveryEventAndCloseStream() {
+        EventSearchFilter filter = EventSearchFilter.builder().userId(userId).build();
+        AtomicBoolean closed = new AtomicBoolean();
+        EventDto first = EventDto.builder().id(1L).build();
+        EventDto second = EventDto.builder().id(2L).build();
+        when(repository.streamDtos(any(), eq(Sort.by("id")), anyInt()))
+                .thenReturn(Stream.of(first, second).onClose(() -> closed.set(true)));
+        List<EventDto> exported = new ArrayList<>();
+
+        service.exportEvents(filter, exported::add);
+
+        assertThat(exported, is(List.of(first, second)));
+        assertTrue(closed.get());
+    }
+
+    @Test
+    void deleteEventById() {
+        when(repository.deleteIfOwned(eventId, userId))
+                .thenReturn(EventWriteOutcome.APPLIED);
+
+        service.deleteEventById(userId, eventId);
+
+        verify(repository, never()).findById(any());
     }
 
     @Test
     void deleteNonExistEvent() {
-        when(repository.findById(eventId))
-                .thenReturn(Optional.empty());
+        when(repository.deleteIfOwned(eventId, userId))
+                .thenReturn(EventWriteOutcome.NOT_FOUND);
 
         NotFoundException ex = assertThrows(NotFoundException.class,
-                () -> service.deleteEventById(eventId, userId));
+                () -> service.deleteEventById(userId, eventId));
 
         assertThat(ex.getMessage(), is("Event with id=" + eventId + " was not found"));
-
-        verify(repository, never()).deleteById(any());
     }
 
     @Test
     void deleteEventByOtherUser() {
-        when(repository.findById(eventId))
-                .thenReturn(Optional.of(event));
+        when(repository.deleteIfOwned(eventId, userId))
+                .thenReturn(EventWriteOutcome.NOT_OWNER);
 
         NotAuthorizedException ex = assertThrows(NotAuthorizedException.class,
-                () -> service.deleteEventById(eventId, userId));
-
-        assertThat(ex.getMessage(), is("User id=" + userId + " is not the owner of the event id=" + event.getId()));
-
-        verify(repository, never()).deleteById(any());
+                () -> service.deleteEventById(userId, eventId));
 
+        assertThat(ex.getMessage(), is("User id=" + userId + " is not the owner of the event id=" + eventId));
     }
 
     private UserDto createUser(long userId) {
@@ -239,4 +589,22 @@ class EventServiceImplUnitTest {
                 "Hello");
     }
 
-}
\ No newline at end of file
+    private NewEventDto newEventDto(String name, LocalDateTime start, LocalDateTime end) {
+        return NewEventDto.builder()
+                .name(name)
+                .description("event description")
+                .startDateTime(start)
+                .endDateTime(end)
+                .location("location")
+                .registrationStatus(EventRegistrationStatus.OPEN)
+                .build();
+    }
+
+    private EventServiceImpl createOverlappingService() {
+        EventServiceImpl overlappingService = new EventServiceImpl(repository, mapper, userClient, userIdProjection,
+                Executors.newVirtualThreadPerTaskExecutor(), validator);
+        ReflectionTestUtils.setField(overlappingService, "overlapUserCheck", true);
+        return overlappingService;
+    }
+
+}
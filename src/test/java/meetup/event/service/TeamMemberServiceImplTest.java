@@ -1,12 +1,16 @@
 package meetup.event.service;
 
 import meetup.event.client.UserClient;
+import meetup.event.client.UserIdProjection;
 import meetup.event.dto.user.UserDto;
 import meetup.event.dto.teammember.NewTeamMemberDto;
 import meetup.event.dto.teammember.TeamMemberDto;
+import meetup.event.dto.teammember.TeamPermission;
+import meetup.event.dto.teammember.TeamRosterMemberDto;
+import meetup.event.dto.teammember.TeamRosterOutcome;
+import meetup.event.dto.teammember.TeamRosterResultDto;
 import meetup.event.dto.teammember.UpdateTeamMemberDto;
 import meetup.event.mapper.TeamMemberMapper;
-import meetup.event.model.event.Event;
 import meetup.event.model.teammember.TeamMember;
 import meetup.event.model.teammember.TeamMemberId;
 import meetup.event.model.teammember.TeamMemberRole;
@@ -14,17 +18,20 @@ import meetup.event.repository.event.EventRepository;
 import meetup.event.repository.teammember.TeamMemberRepository;
 import meetup.event.service.event.EventService;
 import meetup.event.service.teammember.TeamMemberServiceImpl;
+import meetup.event.service.teammember.TeamPermissionResolver;
 import meetup.exception.NotAuthorizedException;
 import meetup.exception.NotFoundException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -33,6 +40,8 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.*;
 
 class TeamMemberServiceImplTest {
+    private static final TeamPermission OWNER = new TeamPermission(true, null, null);
+
     @Mock
     private TeamMemberRepository teamMemberRepository;
 
@@ -45,7 +54,9 @@ class TeamMemberServiceImplTest {
     @Mock
     private TeamMemberMapper teamMemberMapper;
 
-    @InjectMocks
+    @Mock
+    private UserIdProjection userIdProjection;
+
     private TeamMemberServiceImpl teamMemberService;
 
     @Mock
@@ -54,6 +65,9 @@ class TeamMemberServiceImplTest {
     @BeforeEach
     void setUp() {
         MockitoAnnotations.openMocks(this);
+        ExecutorService userLookupExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        teamMemberService = new TeamMemberServiceImpl(teamMemberRepository, eventService, teamMemberMapper,
+                userClient, userIdProjection, userLookupExecutor, new TeamPermissionResolver(teamMemberRepository));
     }
 
     @Test
@@ -63,18 +77,13 @@ class TeamMemberServiceImplTest {
         Long memberId = 2L;
         NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(eventId, memberId, TeamMemberRole.MEMBER);
 
-        Event event = new Event();
-        event.setId(eventId);
-        event.setOwnerId(userId);
-
         TeamMember teamMember = new TeamMember(new TeamMemberId(eventId, memberId), TeamMemberRole.MEMBER);
         TeamMemberDto expectedDto = new TeamMemberDto(eventId, memberId, TeamMemberRole.MEMBER);
 
-        when(eventService.getEventByEventId(eventId, userId)).thenReturn(event);
+        when(teamMemberRepository.findPermission(eventId, userId, null)).thenReturn(Optional.of(OWNER));
         when(teamMemberMapper.toTeamMember(newTeamMemberDto)).thenReturn(teamMember);
-        UserDto userDto = createUser(memberId);
-        when(userClient.getUserById(anyLong(), anyLong()))
-                .thenReturn(userDto);
+        when(userClient.getUsersByIds(userId, List.of(userId, memberId)))
+                .thenReturn(List.of(createUser(userId), createUser(memberId)));
 
         when(teamMemberRepository.save(any())).thenReturn(teamMember);
         when(teamMemberMapper.toTeamMemberDto(teamMember)).thenReturn(expectedDto);
@@ -82,6 +91,73 @@ class TeamMemberServiceImplTest {
         TeamMemberDto result = teamMemberService.addTeamMember(userId, newTeamMemberDto);
         assertEquals(expectedDto, result);
         verify(teamMemberMapper, times(1)).toTeamMemberDto(teamMember);
+        verify(eventService, times(1)).markTeamUpdated(eventId);
+    }
+
+    @Test
+    void upsertRoster_shouldLookUpUsersInBatchesAndWriteFoundMembersOnce() {
+        Long userId = 1L;
+        Long eventId = 10L;
+        List<TeamRosterMemberDto> members = LongStream.rangeClosed(2, 301)
+                .mapToObj(memberId -> new TeamRosterMemberDto(memberId, TeamMemberRole.MEMBER))
+                .toList();
+
+        when(teamMemberRepository.findPermission(eventId, userId, null)).thenReturn(Optional.of(OWNER));
+        when(userClient.getUsersByIds(eq(userId), anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(1);
+            // user 301 is missing
+            return ids.stream().filter(id -> id != 301L).map(this::createUser).toList();
+        });
+        when(teamMemberRepository.upsertRoles(eq(eventId), anyList(), anyList())).thenAnswer(invocation -> {
+            List<Long> ids = invocation.getArgument(1);
+            return ids.stream().filter(id -> id != 2L).collect(Collectors.toMap(id -> id, id -> id != 3L));
+        });
+
+        List<TeamRosterResultDto> results = teamMemberService.upsertRoster(userId, eventId, members);
+
+        assertEquals(300, results.size());
+        assertEquals(TeamRosterOutcome.UNCHANGED, results.get(0).outcome());
+        assertEquals(TeamRosterOutcome.UPDATED, results.get(1).outcome());
+        assertEquals(TeamRosterOutcome.ADDED, results.get(2).outcome());
+        assertEquals(TeamRosterOutcome.USER_NOT_FOUND, results.get(299).outcome());
+        verify(userClient, times(2)).getUsersByIds(eq(userId), anyList());
+        verify(teamMemberRepository, times(1)).upsertRoles(eq(eventId), argThat(ids -> ids.size() == 299), anyList());
+        verify(eventService, times(1)).markTeamUpdated(eventId);
+    }
+
+    @Test
+    void upsertRoster_shouldNotWriteWhenRequesterIsNotManager() {
+        Long userId = 1L;
+        Long eventId = 10L;
+
+        when(teamMemberRepository.findPermission(eventId, userId, null))
+                .thenReturn(Optional.of(new TeamPermission(false, TeamMemberRole.MEMBER, null)));
+        when(userClient.getUsersByIds(eq(userId), anyList())).thenReturn(List.of(createUser(userId), createUser(2L)));
+
+        assertThrows(NotAuthorizedException.class, () -> teamMemberService.upsertRoster(userId, eventId,
+                List.of(new TeamRosterMemberDto(2L, TeamMemberRole.MANAGER))));
+        verify(teamMemberRepository, never()).upsertRoles(any(), anyList(), anyList());
+        verify(eventService, never()).markTeamUpdated(any());
+    }
+
+    @Test
+    void addTeamMember_shouldCheckUsersInFreshUserIdProjection() {
+        Long userId = 1L;
+        Long eventId = 10L;
+        Long memberId = 2L;
+        NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(eventId, memberId, TeamMemberRole.MEMBER);
+
+        when(userIdProjection.isFresh()).thenReturn(true);
+        when(userIdProjection.contains(userId)).thenReturn(true);
+        when(userIdProjection.contains(memberId)).thenReturn(false);
+        when(teamMemberRepository.findPermission(eventId, userId, null)).thenReturn(Optional.of(OWNER));
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> teamMemberService.addTeamMember(userId, newTeamMemberDto));
+
+        assertEquals("User was not found", exception.getMessage());
+        verifyNoInteractions(userClient);
+        verify(teamMemberRepository, never()).save(any());
     }
 
     @Test
@@ -91,18 +167,17 @@ class TeamMemberServiceImplTest {
         Long memberId = 2L;
         NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(eventId, memberId, TeamMemberRole.MEMBER);
 
-        UserDto userDto = createUser(userId);
-        when(userClient.getUserById(userId, userId))
-                .thenReturn(userDto);
+        when(userClient.getUsersByIds(userId, List.of(userId, memberId)))
+                .thenReturn(List.of(createUser(userId), createUser(memberId)));
 
-        when(eventService.getEventByEventId(eventId, userId))
-                .thenThrow(new NotFoundException("Event id = 10 not found!"));
+        when(teamMemberRepository.findPermission(eventId, userId, null)).thenReturn(Optional.empty());
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> teamMemberService.addTeamMember(userId, newTeamMemberDto));
 
-        assertEquals("Event id = 10 not found!", exception.getMessage());
-        verifyNoInteractions(teamMemberRepository, teamMemberMapper);
+        assertEquals("Event with id=10 was not found", exception.getMessage());
+        verify(teamMemberRepository, never()).updateRole(any(), any(), any());
+        verifyNoInteractions(teamMemberMapper);
     }
 
     @Test
@@ -112,14 +187,15 @@ class TeamMemberServiceImplTest {
         Long memberId = 12L;
         NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(eventId, memberId, TeamMemberRole.MEMBER);
 
-        when(userClient.getUserById(userId, userId))
-                .thenThrow(new NotFoundException("User was not found!"));
+        when(userClient.getUsersByIds(userId, List.of(userId, memberId)))
+                .thenReturn(List.of(createUser(memberId)));
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> teamMemberService.addTeamMember(userId, newTeamMemberDto));
 
-        assertEquals("User was not found!", exception.getMessage());
-        verifyNoInteractions(teamMemberRepository, teamMemberMapper);
+        assertEquals("User was not found", exception.getMessage());
+        verify(teamMemberRepository, never()).updateRole(any(), any(), any());
+        verifyNoInteractions(teamMemberMapper);
     }
 
     @Test
@@ -129,14 +205,15 @@ class TeamMemberServiceImplTest {
         Long memberId = 12L;
         NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(eventId, memberId, TeamMemberRole.MEMBER);
 
-        when(userClient.getUserById(userId, memberId))
-                .thenThrow(new NotFoundException("User was not found!"));
+        when(userClient.getUsersByIds(userId, List.of(userId, memberId)))
+                .thenReturn(List.of(createUser(userId)));
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> teamMemberService.addTeamMember(userId, newTeamMemberDto));
 
-        assertEquals("User was not found!", exception.getMessage());
-        verifyNoInteractions(teamMemberRepository, teamMemberMapper);
+        assertEquals("User was not found", exception.getMessage());
+        verify(teamMemberRepository, never()).updateRole(any(), any(), any());
+        verifyNoInteractions(teamMemberMapper);
     }
 
     @Test
@@ -177,45 +254,27 @@ class TeamMemberServiceImplTest {
         Long eventId = 10L;
         Long memberId = 2L;
 
-        TeamMember teamMember = new TeamMember(
-                new TeamMemberId(eventId, memberId),
-                TeamMemberRole.MEMBER
-        );
         TeamMemberDto teamMemberDto = new TeamMemberDto(
                 eventId,
                 memberId,
                 TeamMemberRole.MANAGER
         );
-        Event event = Event.builder()
-                .id(eventId)
-                .name("event")
-                .description("event description")
-                .createdDateTime(null)
-                .startDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
-                .endDateTime(LocalDateTime.of(2024, 12, 26, 22, 0, 0))
-                .location("location")
-                .ownerId(memberId)
-                .build();
-
-        when(eventService.getEventByEventId(eventId, userId)).thenReturn(event);
         UpdateTeamMemberDto updateTeamMemberDto = new UpdateTeamMemberDto(TeamMemberRole.MANAGER);
 
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, userId))
-                .thenReturn(Optional.of(new TeamMember(new TeamMemberId(eventId, userId), TeamMemberRole.MANAGER)));
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, memberId))
-                .thenReturn(Optional.of(teamMember));
-        doNothing().when(teamMemberMapper).updateTeamMember(updateTeamMemberDto, teamMember);
-        when(teamMemberRepository.save(teamMember)).thenReturn(teamMember);
-        when(teamMemberMapper.toTeamMemberDto(teamMember)).thenReturn(teamMemberDto);
+        when(teamMemberRepository.findPermission(eventId, userId, memberId))
+                .thenReturn(Optional.of(new TeamPermission(false, TeamMemberRole.MANAGER, TeamMemberRole.MEMBER)));
+        when(teamMemberRepository.updateRole(eventId, memberId, TeamMemberRole.MANAGER)).thenReturn(true);
+        when(teamMemberMapper.toTeamMemberDto(argThat(member -> member.getId().equals(new TeamMemberId(eventId, memberId))
+                && member.getRole() == TeamMemberRole.MANAGER))).thenReturn(teamMemberDto);
 
         TeamMemberDto result = teamMemberService.updateTeamMemberInEvent(userId, eventId, memberId, updateTeamMemberDto);
 
         assertEquals(teamMemberDto, result);
-        verify(teamMemberRepository, times(1)).findByIdEventIdAndIdUserId(eventId, userId);
-        verify(teamMemberRepository, times(1)).findByIdEventIdAndIdUserId(eventId, memberId);
-        verify(teamMemberRepository, times(1)).save(teamMember);
-        verify(teamMemberMapper, times(1)).toTeamMemberDto(teamMember);
-
+        verify(teamMemberRepository, times(1)).findPermission(eventId, userId, memberId);
+        verify(teamMemberRepository, never()).findById(any());
+        verify(teamMemberRepository, never()).save(any());
+        verify(eventService, never()).getEventByEventId(any(), any());
+        verify(eventService, times(1)).markTeamUpdated(eventId);
     }
 
     @Test
@@ -224,17 +283,17 @@ class TeamMemberServiceImplTest {
         Long eventId = 10L;
         Long memberId = 2L;
 
-
         UpdateTeamMemberDto updateTeamMemberDto = new UpdateTeamMemberDto(TeamMemberRole.MANAGER);
-        when(eventService.getEventByEventId(eventId, userId))
-                .thenThrow(new NotFoundException(String.format("Event id = %d not found!", eventId)));
+        when(teamMemberRepository.findPermission(eventId, userId, memberId)).thenReturn(Optional.empty());
+
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
                 () -> teamMemberService.updateTeamMemberInEvent(userId, eventId, memberId, updateTeamMemberDto)
         );
 
-        assertEquals(String.format("Event id = %d not found!", eventId), exception.getMessage());
-        verifyNoMoreInteractions(teamMemberRepository, teamMemberMapper);
+        assertEquals(String.format("Event with id=%d was not found", eventId), exception.getMessage());
+        verify(teamMemberRepository, never()).updateRole(any(), any(), any());
+        verifyNoInteractions(teamMemberMapper);
     }
 
     @Test
@@ -242,24 +301,10 @@ class TeamMemberServiceImplTest {
         Long userId = 1L;
         Long eventId = 10L;
         Long memberId = 2L;
-        Event event = Event.builder()
-                .id(eventId)
-                .name("event")
-                .description("event description")
-                .createdDateTime(null)
-                .startDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
-                .endDateTime(LocalDateTime.of(2024, 12, 26, 22, 0, 0))
-                .location("location")
-                .ownerId(memberId)
-                .build();
-
-        when(eventService.getEventByEventId(eventId, userId)).thenReturn(event);
 
         UpdateTeamMemberDto updateTeamMemberDto = new UpdateTeamMemberDto(TeamMemberRole.MANAGER);
-
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, userId))
-                .thenReturn(Optional.of(new TeamMember(new TeamMemberId(eventId, userId), TeamMemberRole.MANAGER)));
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, memberId)).thenReturn(Optional.empty());
+        when(teamMemberRepository.findPermission(eventId, userId, memberId))
+                .thenReturn(Optional.of(new TeamPermission(false, TeamMemberRole.MANAGER, null)));
 
         NotFoundException exception = assertThrows(
                 NotFoundException.class,
@@ -267,35 +312,41 @@ class TeamMemberServiceImplTest {
         );
 
         assertEquals(String.format("Team member id = %d is not in team event id = %d", memberId, eventId), exception.getMessage());
-        verify(teamMemberRepository, times(1)).findByIdEventIdAndIdUserId(eventId, userId);
-        verify(teamMemberRepository, times(1)).findByIdEventIdAndIdUserId(eventId, memberId);
-        verifyNoMoreInteractions(teamMemberMapper);
+        verify(teamMemberRepository, times(1)).findPermission(eventId, userId, memberId);
+        verify(teamMemberRepository, never()).updateRole(any(), any(), any());
+        verifyNoInteractions(teamMemberMapper);
     }
 
     @Test
-    void updateTeamMemberInEvent_shouldThrowNotAuthorizedExceptionWhenUserIsNotManager() {
+    void updateTeamMemberInEvent_shouldThrowNotFoundExceptionWhenMemberWasDeletedConcurrently() {
         Long userId = 1L;
         Long eventId = 10L;
         Long memberId = 2L;
-        Event event = Event.builder()
-                .id(eventId)
-                .name("event")
-                .description("event description")
-                .createdDateTime(null)
-                .startDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
-                .endDateTime(LocalDateTime.of(2024, 12, 26, 22, 0, 0))
-                .location("location")
-                .ownerId(memberId)
-                .build();
 
         UpdateTeamMemberDto updateTeamMemberDto = new UpdateTeamMemberDto(TeamMemberRole.MANAGER);
+        when(teamMemberRepository.findPermission(eventId, userId, memberId))
+                .thenReturn(Optional.of(new TeamPermission(false, TeamMemberRole.MANAGER, TeamMemberRole.MEMBER)));
+        when(teamMemberRepository.updateRole(eventId, memberId, TeamMemberRole.MANAGER)).thenReturn(false);
+
+        NotFoundException exception = assertThrows(
+                NotFoundException.class,
+                () -> teamMemberService.updateTeamMemberInEvent(userId, eventId, memberId, updateTeamMemberDto)
+        );
 
-        when(eventService.getEventByEventId(eventId, userId)).thenReturn(event);
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, memberId))
-                .thenReturn(Optional.of(new TeamMember(new TeamMemberId(eventId, userId), TeamMemberRole.MEMBER)));
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, userId))
-                .thenReturn(Optional.of(new TeamMember(new TeamMemberId(eventId, userId), TeamMemberRole.MEMBER)));
+        assertEquals(String.format("Team member id = %d is not in team event id = %d", memberId, eventId), exception.getMessage());
+        verify(eventService, never()).markTeamUpdated(any());
+        verifyNoInteractions(teamMemberMapper);
+    }
 
+    @Test
+    void updateTeamMemberInEvent_shouldThrowNotAuthorizedExceptionWhenUserIsNotManager() {
+        Long userId = 1L;
+        Long eventId = 10L;
+        Long memberId = 2L;
+
+        UpdateTeamMemberDto updateTeamMemberDto = new UpdateTeamMemberDto(TeamMemberRole.MANAGER);
+        when(teamMemberRepository.findPermission(eventId, userId, memberId))
+                .thenReturn(Optional.of(new TeamPermission(false, TeamMemberRole.MEMBER, TeamMemberRole.MEMBER)));
 
         NotAuthorizedException exception = assertThrows(
                 NotAuthorizedException.class,
@@ -303,9 +354,9 @@ class TeamMemberServiceImplTest {
         );
 
         assertEquals(String.format("User id = %d in event id = %d not Manager", userId, eventId), exception.getMessage());
-        verify(eventService, times(1)).getEventByEventId(eventId, userId);
-        verify(teamMemberRepository, times(1)).findByIdEventIdAndIdUserId(eventId, userId);
-        verifyNoMoreInteractions(teamMemberMapper);
+        verify(teamMemberRepository, times(1)).findPermission(eventId, userId, memberId);
+        verify(teamMemberRepository, never()).updateRole(any(), any(), any());
+        verifyNoInteractions(teamMemberMapper);
     }
 
     @Test
@@ -313,28 +364,16 @@ class TeamMemberServiceImplTest {
         Long userId = 1L;
         Long eventId = 10L;
         Long memberId = 2L;
-        Event event = Event.builder()
-                .id(eventId)
-                .name("event")
-                .description("event description")
-                .createdDateTime(null)
-                .startDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
-                .endDateTime(LocalDateTime.of(2024, 12, 26, 22, 0, 0))
-                .location("location")
-                .ownerId(memberId)
-                .build();
-        TeamMember teamMember = new TeamMember(new TeamMemberId(eventId, memberId), TeamMemberRole.MEMBER);
-        TeamMember teamManager = new TeamMember(new TeamMemberId(eventId, userId), TeamMemberRole.MANAGER);
-
-        when(eventService.getEventByEventId(eventId, userId)).thenReturn(event);
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, memberId)).thenReturn(Optional.of(teamMember));
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, userId)).thenReturn(Optional.of(teamManager));
 
-        doNothing().when(teamMemberRepository).delete(teamMember);
+        when(teamMemberRepository.findPermission(eventId, userId, memberId))
+                .thenReturn(Optional.of(new TeamPermission(true, null, TeamMemberRole.MEMBER)));
+        when(teamMemberRepository.deleteMember(eventId, memberId)).thenReturn(true);
 
         teamMemberService.deleteTeamMemberFromEvent(userId, eventId, memberId);
 
-        verify(teamMemberRepository, times(1)).delete(teamMember);
+        verify(teamMemberRepository, times(1)).deleteMember(eventId, memberId);
+        verify(teamMemberRepository, never()).findById(any());
+        verify(eventService, times(1)).markTeamUpdated(eventId);
     }
 
     @Test
@@ -342,24 +381,59 @@ class TeamMemberServiceImplTest {
         Long userId = 1L;
         Long eventId = 10L;
         Long memberId = 2L;
-        Event event = Event.builder()
-                .id(eventId)
-                .name("event")
-                .description("event description")
-                .createdDateTime(null)
-                .startDateTime(LocalDateTime.of(2024, 12, 26, 18, 0, 0))
-                .endDateTime(LocalDateTime.of(2024, 12, 26, 22, 0, 0))
-                .location("location")
-                .ownerId(memberId)
-                .build();
-
-        when(eventService.getEventByEventId(eventId, userId)).thenReturn(event);
-        when(teamMemberRepository.findByIdEventIdAndIdUserId(eventId, memberId)).thenReturn(Optional.empty());
+
+        when(teamMemberRepository.findPermission(eventId, userId, memberId))
+                .thenReturn(Optional.of(new TeamPermission(false, null, TeamMemberRole.MEMBER)));
 
         NotFoundException exception = assertThrows(NotFoundException.class,
                 () -> teamMemberService.deleteTeamMemberFromEvent(userId, eventId, memberId));
 
         assertEquals("Team member id = 1 is not in team event id = 10", exception.getMessage());
+        verify(teamMemberRepository, never()).deleteMember(any(), any());
+    }
+
+    @Test
+    void deleteTeamMemberFromEvent_shouldThrowNotFoundExceptionWhenMemberWasDeletedConcurrently() {
+        Long userId = 1L;
+        Long eventId = 10L;
+        Long memberId = 2L;
+
+        when(teamMemberRepository.findPermission(eventId, userId, memberId))
+                .thenReturn(Optional.of(new TeamPermission(true, null, TeamMemberRole.MEMBER)));
+        when(teamMemberRepository.deleteMember(eventId, memberId)).thenReturn(false);
+
+        NotFoundException exception = assertThrows(NotFoundException.class,
+                () -> teamMemberService.deleteTeamMemberFromEvent(userId, eventId, memberId));
+
+        assertEquals(String.format("Team member id = %d is not in team event id = %d", memberId, eventId), exception.getMessage());
+        verify(eventService, never()).markTeamUpdated(any());
+    }
+
+    @Test
+    void addTeamMember_shouldCheckUsersConcurrentlyWithEventAndRoleChecks() {
+        Long userId = 1L;
+        Long eventId = 10L;
+        Long memberId = 2L;
+        long latencyMillis = 300;
+        NewTeamMemberDto newTeamMemberDto = new NewTeamMemberDto(eventId, memberId, TeamMemberRole.MEMBER);
+        TeamMember teamMember = new TeamMember(new TeamMemberId(eventId, memberId), TeamMemberRole.MEMBER);
+
+        when(userClient.getUsersByIds(userId, List.of(userId, memberId))).thenAnswer(invocation -> {
+            Thread.sleep(latencyMillis);
+            return List.of(createUser(userId), createUser(memberId));
+        });
+        when(teamMemberRepository.findPermission(eventId, userId, null)).thenAnswer(invocation -> {
+            Thread.sleep(latencyMillis);
+            return Optional.of(OWNER);
+        });
+        when(teamMemberRepository.save(any())).thenReturn(teamMember);
+
+        long start = System.nanoTime();
+        teamMemberService.addTeamMember(userId, newTeamMemberDto);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertTrue(elapsedMillis < 2 * latencyMillis,
+                "User lookup and event check should overlap, took " + elapsedMillis + " ms");
     }
 
     private UserDto createUser(long userId) {
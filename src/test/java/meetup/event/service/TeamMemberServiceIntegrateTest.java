@@ -4,11 +4,17 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import com.github.dockerjava.zerodep.shaded.org.apache.hc.core5.http.ContentType;
+import meetup.event.dto.event.EventVersion;
 import meetup.event.dto.user.UserDto;
 import meetup.event.dto.teammember.NewTeamMemberDto;
 import meetup.event.dto.teammember.TeamMemberDto;
+import meetup.event.dto.teammember.TeamRosterMemberDto;
+import meetup.event.dto.teammember.TeamRosterOutcome;
+import meetup.event.dto.teammember.TeamRosterResultDto;
+import meetup.event.dto.teammember.UpdateTeamMemberDto;
 import meetup.event.model.event.Event;
 import meetup.event.model.teammember.TeamMemberRole;
+import meetup.event.repository.teammember.TeamMemberRepository;
 import meetup.event.service.event.EventService;
 import meetup.event.service.teammember.TeamMemberService;
 import meetup.exception.NotFoundException;
@@ -21,23 +27,31 @@ import org.springframework.boot.testcontainers.service.connection.ServiceConnect
 import org.springframework.cloud.contract.wiremock.AutoConfigureWireMock;
 import org.springframework.http.HttpStatus;
 import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
 import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.*;
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 @SpringBootTest
 @Testcontainers
 @AutoConfigureWireMock(port = 0)
 @TestPropertySource(properties = {
-        "app.user-service.url=localhost:${wiremock.server.port}"
+        "app.user-service.url=localhost:${wiremock.server.port}",
+        "app.user-service.cache.enabled=false"
 })
 public class TeamMemberServiceIntegrateTest {
     @Container
@@ -47,6 +61,10 @@ public class TeamMemberServiceIntegrateTest {
     private EventService eventService;
     @Autowired
     private TeamMemberService teamMemberService;
+    @Autowired
+    private TeamMemberRepository teamMemberRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
     private ObjectMapper objectMapper;
     private final Event event = Event.builder()
             .id(null)
@@ -159,6 +177,126 @@ public class TeamMemberServiceIntegrateTest {
         assertEquals("User was not found", ex.getLocalizedMessage());
     }
 
+    @Test
+    void upsertRosterShouldReportOutcomePerMember() throws JsonProcessingException {
+        Long userId = 1L;
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(createUser(userId)))
+                        .withStatus(HttpStatus.OK.value())));
+        stubFor(get(urlPathEqualTo("/users"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(List.of(createUser(userId), createUser(2L),
+                                createUser(3L), createUser(4L))))
+                        .withStatus(HttpStatus.OK.value())));
+        eventService.createEvent(userId, event);
+        teamMemberService.upsertRoster(userId, event.getId(), List.of(
+                new TeamRosterMemberDto(2L, TeamMemberRole.MEMBER),
+                new TeamRosterMemberDto(3L, TeamMemberRole.MEMBER)));
+
+        List<TeamRosterResultDto> results = teamMemberService.upsertRoster(userId, event.getId(), List.of(
+                new TeamRosterMemberDto(2L, TeamMemberRole.MEMBER),
+                new TeamRosterMemberDto(3L, TeamMemberRole.MANAGER),
+                new TeamRosterMemberDto(4L, TeamMemberRole.MEMBER),
+                new TeamRosterMemberDto(5L, TeamMemberRole.MEMBER),
+                new TeamRosterMemberDto(4L, TeamMemberRole.MANAGER)));
+
+        assertEquals(List.of(TeamRosterOutcome.UNCHANGED, TeamRosterOutcome.UPDATED, TeamRosterOutcome.ADDED,
+                        TeamRosterOutcome.USER_NOT_FOUND, TeamRosterOutcome.DUPLICATE),
+                results.stream().map(TeamRosterResultDto::outcome).toList());
+        assertEquals(List.of(new TeamMemberDto(event.getId(), 2L, TeamMemberRole.MEMBER),
+                        new TeamMemberDto(event.getId(), 3L, TeamMemberRole.MANAGER),
+                        new TeamMemberDto(event.getId(), 4L, TeamMemberRole.MEMBER)),
+                teamMemberService.getTeamsByEventId(userId, event.getId()).stream()
+                        .sorted(Comparator.comparing(TeamMemberDto::userId))
+                        .toList());
+    }
+
+    @Test
+    void upsertRolesShouldWriteLargeRosterInOneStatement() throws JsonProcessingException {
+        Long userId = 1L;
+        int members = 5_000;
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(createUser(userId)))
+                        .withStatus(HttpStatus.OK.value())));
+        eventService.createEvent(userId, event);
+        List<Long> memberIds = LongStream.rangeClosed(2, members + 1).boxed().toList();
+        List<TeamMemberRole> roles = Collections.nCopies(members, TeamMemberRole.MEMBER);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        long start = System.nanoTime();
+        Map<Long, Boolean> written = transaction.execute(status ->
+                teamMemberRepository.upsertRoles(event.getId(), memberIds, roles));
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        assertEquals(members, written.size());
+        assertTrue(written.values().stream().allMatch(Boolean::booleanValue));
+        assertTrue(elapsedMillis < 1_000, "Roster of " + members + " members took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void updateAndDeleteShouldWriteMemberWithoutLoadingIt() throws JsonProcessingException {
+        Long userId = 1L;
+        Long memberId = 2L;
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(createUser(userId)))
+                        .withStatus(HttpStatus.OK.value())));
+        stubFor(get(urlEqualTo("/users/" + memberId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(createUser(memberId)))
+                        .withStatus(HttpStatus.OK.value())));
+        eventService.createEvent(userId, event);
+        teamMemberService.addTeamMember(userId, new NewTeamMemberDto(event.getId(), memberId, TeamMemberRole.MEMBER));
+        // cached, so the reads below show whether the writes evicted it
+        teamMemberService.getTeamsByEventId(userId, event.getId());
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+
+        assertEquals(true, transaction.execute(status ->
+                teamMemberRepository.updateRole(event.getId(), memberId, TeamMemberRole.MANAGER)));
+        assertEquals(List.of(new TeamMemberDto(event.getId(), memberId, TeamMemberRole.MANAGER)),
+                teamMemberService.getTeamsByEventId(userId, event.getId()));
+
+        assertEquals(true, transaction.execute(status -> teamMemberRepository.deleteMember(event.getId(), memberId)));
+        assertEquals(List.of(), teamMemberService.getTeamsByEventId(userId, event.getId()));
+
+        assertEquals(false, transaction.execute(status ->
+                teamMemberRepository.updateRole(event.getId(), memberId, TeamMemberRole.MEMBER)));
+        assertEquals(false, transaction.execute(status -> teamMemberRepository.deleteMember(event.getId(), memberId)));
+    }
+
+    @Test
+    void everyTeamChangeShouldIncrementTeamVersion() throws JsonProcessingException {
+        Long userId = 1L;
+        Long memberId = 2L;
+        stubFor(get(urlEqualTo("/users/" + userId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(createUser(userId)))
+                        .withStatus(HttpStatus.OK.value())));
+        stubFor(get(urlEqualTo("/users/" + memberId))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", ContentType.APPLICATION_JSON.getMimeType())
+                        .withBody(objectMapper.writeValueAsString(createUser(memberId)))
+                        .withStatus(HttpStatus.OK.value())));
+        eventService.createEvent(userId, event);
+        EventVersion created = eventService.getEventVersion(event.getId());
+
+        teamMemberService.addTeamMember(userId, new NewTeamMemberDto(event.getId(), memberId, TeamMemberRole.MEMBER));
+        teamMemberService.updateTeamMemberInEvent(userId, event.getId(), memberId,
+                new UpdateTeamMemberDto(TeamMemberRole.MANAGER));
+
+        EventVersion changed = eventService.getEventVersion(event.getId());
+        assertEquals(created.teamVersion() + 2, changed.teamVersion());
+        assertEquals(created.version(), changed.version());
+    }
+
     private UserDto createUser(long userId) {
         return new UserDto(
                 userId,
@@ -0,0 +1,53 @@
+package meetup.event.service;
+
+import meetup.event.dto.teammember.TeamPermission;
+import meetup.event.model.teammember.TeamMemberRole;
+import meetup.event.repository.teammember.TeamMemberRepository;
+import meetup.event.service.teammember.TeamPermissionResolver;
+import meetup.exception.NotFoundException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TeamPermissionResolverTest {
+    private final TeamPermission manager = new TeamPermission(false, TeamMemberRole.MANAGER, TeamMemberRole.MEMBER);
+
+    @Mock
+    private TeamMemberRepository teamMemberRepository;
+
+    private TeamPermissionResolver resolver;
+
+    @BeforeEach
+    void setUp() {
+        resolver = new TeamPermissionResolver(teamMemberRepository);
+    }
+
+    @Test
+    void permissionShouldBeResolvedWithOneQuery() {
+        when(teamMemberRepository.findPermission(10L, 1L, 2L)).thenReturn(Optional.of(manager));
+
+        assertEquals(manager, resolver.resolve(10L, 1L, 2L));
+
+        verify(teamMemberRepository, times(1)).findPermission(10L, 1L, 2L);
+    }
+
+    @Test
+    void permissionInMissingEventShouldNotBeFound() {
+        when(teamMemberRepository.findPermission(10L, 1L, null)).thenReturn(Optional.empty());
+
+        NotFoundException exception = assertThrows(NotFoundException.class, () -> resolver.resolve(10L, 1L, null));
+
+        assertEquals("Event with id=10 was not found", exception.getMessage());
+    }
+}